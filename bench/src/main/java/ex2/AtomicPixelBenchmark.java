@@ -0,0 +1,76 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent histogramming into a {@link Map}: every operation increments one random pixel.
+ * Compares the lock-free {@link Map#getAndAdd} and {@link Map#accumulateAndGet} with the
+ * {@code synchronized} read-modify-write baseline. {@code size} controls how often threads hit the same pixel.
+ * <p>
+ * Run {@link #main} to sweep 1 to 32 threads, or pick a count with {@code java -jar target/benchmarks.jar -t N}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomicPixelBenchmark {
+    @Param({"16", "1024"})
+    public int size;
+
+    Map heat;
+
+    @Setup
+    public void setup() {
+        heat = new Map(size, size, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class Cell {
+        SplittableRandom rnd;
+        int size;
+
+        @Setup
+        public void setup(AtomicPixelBenchmark bench, ThreadParams params) {
+            rnd = new SplittableRandom(params.getThreadIndex());
+            size = bench.size;
+        }
+    }
+
+    @Benchmark
+    public int getAndAdd(Cell c) {
+        return heat.getAndAdd(c.rnd.nextInt(c.size), c.rnd.nextInt(c.size), 1);
+    }
+
+    @Benchmark
+    public int accumulateAndGet(Cell c) {
+        return heat.accumulateAndGet(c.rnd.nextInt(c.size), c.rnd.nextInt(c.size), 1, Integer::sum);
+    }
+
+    @Benchmark
+    public void synchronizedBaseline(Cell c) {
+        int x = c.rnd.nextInt(c.size), y = c.rnd.nextInt(c.size);
+        synchronized (heat) {
+            heat.setPixel(x, y, heat.getPixel(x, y) + 1);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int t : new int[]{1, 2, 4, 8, 16, 32}) {
+            Options opt = new OptionsBuilder()
+                    .include(AtomicPixelBenchmark.class.getSimpleName())
+                    .threads(t)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ex2;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the regression suite ({@link Map2DBenchmark}, {@link SearchBenchmark} and {@link MapIoBenchmark}) with the GC
+ * profiler, so every result also shows its allocation rate ({@code gc.alloc.rate.norm} is bytes per operation).
+ * Extra arguments are JMH regular expressions that narrow it down, e.g. {@code SearchBenchmark.shortestPath}.
+ */
+public class BenchmarkSuite {
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder opt = new OptionsBuilder();
+        if (args.length == 0) {
+            opt.include(Map2DBenchmark.class.getSimpleName())
+                    .include(SearchBenchmark.class.getSimpleName())
+                    .include(MapIoBenchmark.class.getSimpleName());
+        }
+        for (String regex : args) {
+            opt.include(regex);
+        }
+        Options options = opt.addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,95 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark for {@link ConcurrentMap2D}: many writer threads stamping small rectangles and pixels.
+ * {@code stripes=1} is the baseline of a single global lock. With {@code disjoint=true} every thread writes to its
+ * own vertical band of the map, otherwise threads write anywhere.
+ * <p>
+ * Run {@link #main} to sweep 1 to 32 threads, or pick a count with {@code java -jar target/benchmarks.jar -t N}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentMap2DBenchmark {
+    private static final int SIZE = 4096;
+
+    @Param({"1", "64", "256"})
+    public int stripes;
+
+    @Param({"true", "false"})
+    public boolean disjoint;
+
+    ConcurrentMap2D map;
+    int threads;
+
+    @Setup
+    public void setup(org.openjdk.jmh.infra.BenchmarkParams params) {
+        map = new ConcurrentMap2D(new Map(SIZE, SIZE, 0), stripes);
+        threads = params.getThreads();
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        SplittableRandom rnd;
+        int x0, bandWidth;
+
+        @Setup
+        public void setup(ConcurrentMap2DBenchmark bench, ThreadParams params) {
+            rnd = new SplittableRandom(params.getThreadIndex());
+            if (bench.disjoint) {
+                bandWidth = SIZE / bench.threads;
+                x0 = params.getThreadIndex() * bandWidth;
+            } else {
+                bandWidth = SIZE;
+                x0 = 0;
+            }
+        }
+
+        int nextX(int margin) {
+            return x0 + rnd.nextInt(bandWidth - margin);
+        }
+
+        int nextY(int margin) {
+            return rnd.nextInt(SIZE - margin);
+        }
+    }
+
+    @Benchmark
+    public void setPixel(Writer w) {
+        map.setPixel(w.nextX(0), w.nextY(0), 1);
+    }
+
+    @Benchmark
+    public void drawRect16(Writer w) {
+        int x = w.nextX(16), y = w.nextY(16);
+        map.drawRect(new Index2D(x, y), new Index2D(x + 15, y + 15), 2);
+    }
+
+    @Benchmark
+    public int getPixel(Writer w) {
+        return map.getPixel(w.nextX(0), w.nextY(0));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int t : new int[]{1, 2, 4, 8, 16, 32}) {
+            Options opt = new OptionsBuilder()
+                    .include(ConcurrentMap2DBenchmark.class.getSimpleName())
+                    .threads(t)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
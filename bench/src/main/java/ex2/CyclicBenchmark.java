@@ -0,0 +1,64 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same searches with and without {@code cyclic} on a torus map, to check that wrapping around costs (almost)
+ * nothing: searches start at the centre, so both variants grow the same diamond until it meets the edges, and then
+ * the cyclic ones carry on across them. 20% of the pixels are obstacles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CyclicBenchmark {
+    @Param({"256", "2048"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean cyclic;
+
+    Map map;
+    WeightedSearch weighted;
+    Pixel2D centre, corner;
+    int color = 2;
+
+    @Setup
+    public void setup() {
+        map = Maps.obstacles(size, 0.2, 42);
+        centre = new Index2D(size / 2, size / 2);
+        corner = new Index2D(size - 1, size - 1); //as far as it gets from the centre either way
+        map.setPixel(centre, 0);
+        weighted = new WeightedSearch(map, Maps.OBSTACLE, cyclic);
+    }
+
+    @Benchmark
+    public int fill() {
+        color = color == 2 ? 3 : 2; //alternate, so every fill repaints the same region
+        return map.fill(centre, color, cyclic);
+    }
+
+    @Benchmark
+    public Pixel2D[] shortestPath() {
+        return map.shortestPath(centre, corner, Maps.OBSTACLE, cyclic);
+    }
+
+    @Benchmark
+    public Map2D allDistance() {
+        return map.allDistance(centre, Maps.OBSTACLE, cyclic);
+    }
+
+    @Benchmark
+    public Map2D allDistanceEight() {
+        return map.allDistance(centre, Maps.OBSTACLE, cyclic, Neighbourhood.EIGHT, null);
+    }
+
+    @Benchmark
+    public Map2D weightedCostMap() {
+        return weighted.costMap(centre);
+    }
+}
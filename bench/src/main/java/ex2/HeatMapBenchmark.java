@@ -0,0 +1,48 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders an {@code allDistance} result with {@link HeatMapRenderer}, over the full range and with percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+public class HeatMapBenchmark {
+    @Param({"1000", "4000"})
+    public int size;
+
+    Map2D dist;
+    BufferedImage frame;
+    HeatMapRenderer minMax, percentiles;
+
+    @Setup
+    public void setup() {
+        Map map = new Map(size, size, 0);
+        for (int x = size / 8; x < size; x += size / 4) {
+            map.drawRect(new Index2D(x, 0), new Index2D(x + 2, size - 10), 1); //walls, so distances get large
+        }
+        dist = map.allDistance(new Index2D(0, 0), 1, false);
+        frame = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        minMax = new HeatMapRenderer();
+        percentiles = new HeatMapRenderer(HeatMapRenderer.VIRIDIS, 0xff404040, 2, 98);
+    }
+
+    @Benchmark
+    public BufferedImage minMax() {
+        minMax.render(dist, frame);
+        return frame;
+    }
+
+    @Benchmark
+    public BufferedImage percentiles() {
+        percentiles.render(dist, frame);
+        return frame;
+    }
+}
@@ -0,0 +1,116 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every non-search {@link Map2D} operation of {@link Map}, by map size.
+ * The searches are in {@link SearchBenchmark}, file I/O in {@link MapIoBenchmark}.
+ * Add {@code -prof gc} (or run {@link BenchmarkSuite}) to see the allocation rate of each operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class Map2DBenchmark {
+    private static final int ACCESSES = 1024; //pixels read/written per getPixel/setPixel op
+
+    @Param({"64", "1024", "8192"})
+    public int size;
+
+    Map map, zeros, copy;
+    int[] xs, ys;
+    Pixel2D center, lineFrom, lineTo, rectFrom, rectTo;
+
+    @Setup
+    public void setup() {
+        map = Maps.obstacles(size, 0.2, 42);
+        zeros = new Map(size, size, 0);
+        copy = new Map(map.getMap());
+
+        SplittableRandom rnd = new SplittableRandom(7);
+        xs = rnd.ints(ACCESSES, 0, size).toArray();
+        ys = rnd.ints(ACCESSES, 0, size).toArray();
+        center = new Index2D(size / 2, size / 2);
+        lineFrom = new Index2D(0, size / 3);
+        lineTo = new Index2D(size - 1, 2 * size / 3);
+        rectFrom = new Index2D(size / 4, size / 4);
+        rectTo = new Index2D(3 * size / 4, 3 * size / 4);
+    }
+
+    @Benchmark
+    public Map init() {
+        zeros.init(size, size, 0);
+        return zeros;
+    }
+
+    @Benchmark
+    public int[][] getMap() {
+        return map.getMap();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public int getPixel() {
+        int sum = 0;
+        for (int i = 0; i < ACCESSES; i++) {
+            sum += map.getPixel(xs[i], ys[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public Map setPixel() {
+        for (int i = 0; i < ACCESSES; i++) {
+            zeros.setPixel(xs[i], ys[i], 0);
+        }
+        return zeros;
+    }
+
+    @Benchmark
+    public Map addMap2D() {
+        map.addMap2D(zeros); //adding 0s keeps the map the same between invocations
+        return map;
+    }
+
+    @Benchmark
+    public Map mul() {
+        map.mul(1);
+        return map;
+    }
+
+    @Benchmark
+    public Map rescaleHalfThenDouble() {
+        zeros.rescale(0.5, 0.5);
+        zeros.rescale(2, 2);
+        return zeros;
+    }
+
+    @Benchmark
+    public Map drawCircle() {
+        zeros.drawCircle(center, size / 3.0, 0);
+        return zeros;
+    }
+
+    @Benchmark
+    public Map drawLine() {
+        zeros.drawLine(lineFrom, lineTo, 0);
+        return zeros;
+    }
+
+    @Benchmark
+    public Map drawRect() {
+        zeros.drawRect(rectFrom, rectTo, 0);
+        return zeros;
+    }
+
+    @Benchmark
+    public boolean equalsCopy() {
+        return map.equals(copy);
+    }
+}
@@ -0,0 +1,51 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Ex2_GUI#loadMap(String)} and {@link Ex2_GUI#saveMap(Map2D, String)} through a temporary file.
+ * The text format takes about 2 bytes per pixel, so the sizes stop at 2048 (8MB files).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapIoBenchmark {
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    Map map;
+    File loaded, saved;
+
+    @Setup
+    public void setup() throws IOException {
+        map = Maps.obstacles(size, 0.3, 42);
+        loaded = File.createTempFile("load", ".txt");
+        saved = File.createTempFile("save", ".txt");
+        Ex2_GUI.saveMap(map, loaded.getPath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        loaded.delete();
+        saved.delete();
+    }
+
+    @Benchmark
+    public Map2D loadMap() throws FileNotFoundException {
+        return Ex2_GUI.loadMap(loaded.getPath());
+    }
+
+    @Benchmark
+    public File saveMap() {
+        Ex2_GUI.saveMap(map, saved.getPath());
+        return saved;
+    }
+}
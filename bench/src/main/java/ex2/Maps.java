@@ -0,0 +1,30 @@
+package ex2;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic test maps for the benchmarks.
+ */
+final class Maps {
+    static final int OBSTACLE = 1;
+
+    private Maps() {
+    }
+
+    /**
+     * A {@code size*size} map of 0s with a fraction {@code density} of random {@link #OBSTACLE} pixels.
+     * The corners {@code (0,0)} and {@code (size-1,size-1)} are always free.
+     */
+    static Map obstacles(int size, double density, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[][] arr = new int[size][size];
+        for (int[] col : arr) {
+            for (int y = 0; y < size; y++) {
+                col[y] = rnd.nextDouble() < density ? OBSTACLE : 0;
+            }
+        }
+        arr[0][0] = 0;
+        arr[size - 1][size - 1] = 0;
+        return new Map(arr);
+    }
+}
@@ -0,0 +1,77 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many short {@code shortestPath} queries on one map: {@link Map#shortestPath} (fresh arrays per query) against a
+ * {@link PathQueryEngine} (reused, generation-stamped scratch), one query at a time and in batches.
+ * Add {@code -prof gc} to compare the allocation per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PathQueryBenchmark {
+    private static final int QUERIES = 1024;
+    private static final int RADIUS = 16; //targets are at most this far from the start in x and y
+
+    @Param({"256", "2048"})
+    public int size;
+
+    Map map;
+    PathQueryEngine engine;
+    Pixel2D[] from, to;
+
+    @Setup
+    public void setup() {
+        map = Maps.obstacles(size, 0.2, 42);
+        engine = new PathQueryEngine(map, Maps.OBSTACLE, false);
+        SplittableRandom rnd = new SplittableRandom(5);
+        from = new Pixel2D[QUERIES];
+        to = new Pixel2D[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int x = rnd.nextInt(size), y = rnd.nextInt(size);
+            from[i] = new Index2D(x, y);
+            to[i] = new Index2D(Math.floorMod(x + rnd.nextInt(-RADIUS, RADIUS), size),
+                    Math.floorMod(y + rnd.nextInt(-RADIUS, RADIUS), size));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int mapShortestPath() {
+        int n = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            Pixel2D[] path = map.shortestPath(from[i], to[i], Maps.OBSTACLE, false);
+            n += path == null ? 0 : path.length;
+        }
+        return n;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int engineShortestPath() {
+        int n = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            Pixel2D[] path = engine.shortestPath(from[i], to[i]);
+            n += path == null ? 0 : path.length;
+        }
+        return n;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] engineDistancesBatch() {
+        return engine.distances(from, to);
+    }
+}
@@ -0,0 +1,72 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways of drawing a map onto an offscreen canvas (as {@link StdDraw} does, but headless):
+ * the old per cell {@code setPenColor} + {@code filledSquare} path, and {@link MapRenderer} followed by one blit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    private static final int CANVAS = 1024;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    Map map;
+    BufferedImage canvas, frame;
+    Graphics2D g;
+    MapRenderer renderer;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        int[][] arr = new int[size][size];
+        for (int[] col : arr) {
+            for (int y = 0; y < col.length; y++) {
+                col[y] = rnd.nextInt(12);
+            }
+        }
+        map = new Map(arr);
+        canvas = new BufferedImage(CANVAS, CANVAS, BufferedImage.TYPE_INT_ARGB);
+        g = canvas.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); //as in StdDraw
+        frame = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        renderer = new MapRenderer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage perCellFilledSquare() {
+        double cell = (double) CANVAS / size;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                g.setColor(Ex2_GUI.colorOf(map.getPixel(i, j)));
+                g.fill(new Rectangle2D.Double(i * cell, (size - 1 - j) * cell, cell, cell));
+            }
+        }
+        return canvas;
+    }
+
+    @Benchmark
+    public BufferedImage paletteRasterAndBlit() {
+        renderer.render(map, frame);
+        g.drawImage(frame, 0, 0, CANVAS, CANVAS, null);
+        return canvas;
+    }
+}
@@ -0,0 +1,62 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code fill}, {@code shortestPath} and {@code allDistance} by map size, obstacle density and the {@code cyclic} flag.
+ * Searches go from corner to corner, so they cover the whole reachable area. {@code withinDistance} is the bounded
+ * query from the centre, which should not depend on the map size.
+ * Add {@code -prof gc} (or run {@link BenchmarkSuite}) to see the allocation rate of each search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+    @Param({"64", "1024", "8192"})
+    public int size;
+
+    @Param({"0.0", "0.3"})
+    public double density;
+
+    @Param({"false", "true"})
+    public boolean cyclic;
+
+    Map map;
+    Pixel2D start, end, centre;
+    int color = 2;
+
+    @Setup
+    public void setup() {
+        map = Maps.obstacles(size, density, 42);
+        start = new Index2D(0, 0);
+        end = new Index2D(size - 1, size - 1);
+        centre = new Index2D(size / 2, size / 2);
+        map.setPixel(centre, 0);
+    }
+
+    @Benchmark
+    public int fill() {
+        color = color == 2 ? 3 : 2; //alternate, so every fill repaints the same region
+        return map.fill(start, color, cyclic);
+    }
+
+    @Benchmark
+    public Pixel2D[] shortestPath() {
+        return map.shortestPath(start, end, Maps.OBSTACLE, cyclic);
+    }
+
+    @Benchmark
+    public Map2D allDistance() {
+        return map.allDistance(start, Maps.OBSTACLE, cyclic);
+    }
+
+    @Benchmark
+    public SparseDistances withinDistance() {
+        return map.withinDistance(centre, Maps.OBSTACLE, cyclic, 16, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,55 @@
+package ex2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WeightedSearch#costMap} against the unweighted {@link Map#allDistance} on the same map, by cost range:
+ * 1 (0-1 BFS), up to 8 (Dial's buckets) and up to 100000 (the heap). 20% of the pixels are obstacles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class WeightedSearchBenchmark {
+    private static final int OBSTACLE = -1;
+
+    @Param({"1024"})
+    public int size;
+
+    @Param({"1", "8", "100000"})
+    public int maxCost;
+
+    Map map;
+    WeightedSearch search;
+    Pixel2D start;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        int[][] arr = new int[size][size];
+        for (int[] col : arr) {
+            for (int y = 0; y < size; y++) {
+                col[y] = rnd.nextDouble() < 0.2 ? OBSTACLE : 1 + rnd.nextInt(maxCost);
+            }
+        }
+        arr[size / 2][size / 2] = 1;
+        map = new Map(arr);
+        search = new WeightedSearch(map, OBSTACLE, false);
+        start = new Index2D(size / 2, size / 2);
+    }
+
+    @Benchmark
+    public Map2D costMap() {
+        return search.costMap(start);
+    }
+
+    @Benchmark
+    public Map2D allDistance() {
+        return map.allDistance(start, OBSTACLE, false);
+    }
+}
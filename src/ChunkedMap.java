@@ -0,0 +1,403 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A 2D map stored as square chunks (tiles) of {@value #CHUNK}*{@value #CHUNK} pixels, that supports cheap
+ * copy-on-write snapshots.
+ * <p>
+ * {@link #snapshot()} is O(1): the snapshot shares every chunk with this map, and a chunk is only duplicated the
+ * first time this map writes to it after the snapshot was taken. The snapshot itself is frozen (every method that
+ * would change a pixel throws {@link UnsupportedOperationException}), so any number of reader threads can use it
+ * without locking while the writer keeps editing this map.
+ * <p>
+ * A {@code ChunkedMap} is meant to have a single writer thread. Snapshots should be taken by that thread and handed
+ * to readers through a safe publication, e.g. {@link #publish()} and {@link #latest()}.
+ *
+ * @author Joshua Hall
+ */
+public class ChunkedMap implements Map2D, Serializable {
+    private static final long serialVersionUID = 1L;
+    static final int CHUNK = 64;
+    private static final int SHIFT = 6, MASK = CHUNK - 1;
+
+    private int width, height, chunksY;
+    private int[][] chunks;
+    private int[] owner; //epoch in which each chunk was last copied
+    private int epoch;
+    private final boolean frozen;
+    private boolean tableShared;
+    private transient volatile ChunkedMap published;
+
+    /**
+     * Constructs a w*h chunked map with an init value v.
+     *
+     * @param w width (&gt; 0)
+     * @param h height (&gt; 0)
+     * @param v default pixel value
+     */
+    public ChunkedMap(int w, int h, int v) {
+        this.frozen = false;
+        init(w, h, v);
+    }
+
+    /**
+     * Constructs a chunked map from a given 2D array.
+     *
+     * @param data 2D array of pixel values
+     */
+    public ChunkedMap(int[][] data) {
+        this.frozen = false;
+        init(data);
+    }
+
+    /**
+     * Constructs a chunked map with a copy of the pixels of another map.
+     *
+     * @param other the map to copy (non-null)
+     */
+    public ChunkedMap(Map2D other) {
+        if (other == null) {
+            throw new NullPointerException("null map");
+        }
+        this.frozen = false;
+        init(other.getMap());
+    }
+
+    /**
+     * Constructs a frozen snapshot sharing the given chunks.
+     */
+    private ChunkedMap(int w, int h, int chunksY, int[][] chunks) {
+        this.width = w;
+        this.height = h;
+        this.chunksY = chunksY;
+        this.chunks = chunks;
+        this.frozen = true;
+    }
+
+    /**
+     * Takes a frozen snapshot of the current pixels in O(1). Later writes to this map are not visible in the snapshot.
+     *
+     * @return a read-only {@link ChunkedMap}, or this map if it is already a snapshot
+     */
+    public ChunkedMap snapshot() {
+        if (isFrozen()) {
+            return this;
+        }
+        epoch++; //every chunk is now shared
+        tableShared = true;
+        return new ChunkedMap(width, height, chunksY, chunks);
+    }
+
+    /**
+     * Takes a snapshot (see {@link #snapshot()}) and makes it the one returned by {@link #latest()}.
+     * Should be called by the writer thread, e.g. after each batch of edits.
+     *
+     * @return the published snapshot
+     */
+    public ChunkedMap publish() {
+        ChunkedMap snap = snapshot();
+        published = snap;
+        return snap;
+    }
+
+    /**
+     * Returns the last snapshot published by {@link #publish()}. Safe to call from any thread.
+     *
+     * @return the latest published snapshot, or {@code null} if nothing was published yet
+     */
+    public ChunkedMap latest() {
+        return published;
+    }
+
+    /**
+     * @return {@code true} iff this map is a read-only snapshot
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Initialises the map to given w,h dimensions with the given v value.
+     * All chunks start out sharing a single chunk, which is copied on the first write to it.
+     *
+     * @param w the width of the underlying 2D array.
+     * @param h the height of the underlying 2D array.
+     * @param v the init value of all the entries in the 2D array.
+     */
+    @Override
+    public void init(int w, int h, int v) {
+        checkWritable();
+        if (w <= 0 || h <= 0) {
+            throw new IllegalArgumentException("invalid dimensions: h=" + h + ", w=" + w);
+        }
+
+        int[] shared = new int[CHUNK * CHUNK];
+        Arrays.fill(shared, v);
+
+        resize(w, h);
+        Arrays.fill(chunks, shared);
+        Arrays.fill(owner, -1); //never equal to epoch, so the shared chunk is copied on write
+    }
+
+    /**
+     * Initialises the map from a 2D array (using a deep copy).
+     *
+     * @param arr a 2D int array.
+     */
+    @Override
+    public void init(int[][] arr) {
+        checkWritable();
+        if (arr == null || arr.length == 0 || arr[0].length == 0) {
+            throw new IllegalArgumentException("null/empty array");
+        }
+        for (int[] col : arr) {
+            if (col.length != arr[0].length) {
+                throw new IllegalArgumentException("ragged array");
+            }
+        }
+
+        resize(arr.length, arr[0].length);
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new int[CHUNK * CHUNK];
+        }
+        for (int x = 0; x < width; x++) {
+            for (int cy = 0; cy < chunksY; cy++) {
+                int y = cy << SHIFT;
+                System.arraycopy(arr[x], y, chunks[chunkOf(x, y)], (x & MASK) << SHIFT, Math.min(CHUNK, height - y));
+            }
+        }
+    }
+
+    /**
+     * Returns a deep copy of the 2D pixel array.
+     *
+     * @return a new 2D array of size {@code width} * {@code height}
+     */
+    @Override
+    public int[][] getMap() {
+        int[][] copy = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int cy = 0; cy < chunksY; cy++) {
+                int y = cy << SHIFT;
+                System.arraycopy(chunks[chunkOf(x, y)], (x & MASK) << SHIFT, copy[x], y, Math.min(CHUNK, height - y));
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        if (!isInside(x, y)) {
+            throw new IndexOutOfBoundsException("x/y out of bounds");
+        }
+        return chunks[chunkOf(x, y)][offsetOf(x, y)];
+    }
+
+    @Override
+    public int getPixel(Pixel2D p) {
+        if (p == null) {
+            throw new NullPointerException("null pixel");
+        }
+        return getPixel(p.getX(), p.getY());
+    }
+
+    @Override
+    public void setPixel(int x, int y, int v) {
+        checkWritable();
+        if (!isInside(x, y)) {
+            throw new IndexOutOfBoundsException("x/y out of bounds");
+        }
+        writableChunk(chunkOf(x, y))[offsetOf(x, y)] = v;
+    }
+
+    @Override
+    public void setPixel(Pixel2D p, int v) {
+        if (p == null) {
+            throw new NullPointerException("null pixel");
+        }
+        setPixel(p.getX(), p.getY(), v);
+    }
+
+    @Override
+    public boolean isInside(Pixel2D p) {
+        return p != null && isInside(p.getX(), p.getY());
+    }
+
+    @Override
+    public boolean sameDimensions(Map2D p) {
+        return p != null && p.getWidth() == width && p.getHeight() == height;
+    }
+
+    @Override
+    public void addMap2D(Map2D p) {
+        checkWritable();
+        if (p == null || !sameDimensions(p)) {
+            return;
+        }
+
+        for (int c = 0; c < chunks.length; c++) {
+            int[] chunk = writableChunk(c);
+            int cx = (c / chunksY) << SHIFT, cy = (c % chunksY) << SHIFT;
+            for (int x = cx; x < Math.min(cx + CHUNK, width); x++) {
+                for (int y = cy; y < Math.min(cy + CHUNK, height); y++) {
+                    chunk[offsetOf(x, y)] += p.getPixel(x, y);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void mul(double scalar) {
+        checkWritable();
+        for (int c = 0; c < chunks.length; c++) {
+            int[] chunk = writableChunk(c);
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = (int) (chunk[i] * scalar);
+            }
+        }
+    }
+
+    /**
+     * Rescales the map by a given scale factor, using the same nearest neighbour rule as {@link Map#rescale}.
+     *
+     * @param sx x direction scale factor (&gt; 0)
+     * @param sy y direction scale factor (&gt; 0)
+     */
+    @Override
+    public void rescale(double sx, double sy) {
+        checkWritable();
+        init(MapRescaler.rescale(getMap(), width, height, sx, sy, MapRescaler.Mode.NEAREST));
+    }
+
+    @Override
+    public void drawCircle(Pixel2D center, double rad, int color) {
+        checkWritable();
+        Rasterizer.drawCircle(this, center, rad, color);
+    }
+
+    @Override
+    public void drawLine(Pixel2D p1, Pixel2D p2, int color) {
+        checkWritable();
+        Rasterizer.drawLine(this, p1, p2, color);
+    }
+
+    @Override
+    public void drawRect(Pixel2D p1, Pixel2D p2, int color) {
+        checkWritable();
+        Rasterizer.drawRect(this, p1, p2, color);
+    }
+
+    /**
+     * Compares this map to another {@code Object}, in the same way as {@link Map#equals(Object)}.
+     *
+     * @param ob the reference object with which to compare.
+     * @return {@code true} iff {@code ob} is a {@link Map2D} with the same dimensions and pixel values
+     */
+    @Override
+    public boolean equals(Object ob) {
+        if (this == ob) {
+            return true;
+        }
+
+        if (!(ob instanceof Map2D)) {
+            return false;
+        }
+
+        Map2D other = (Map2D) ob;
+        if (!sameDimensions(other)) {
+            return false;
+        }
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (getPixel(x, y) != other.getPixel(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the same hash as a {@link Map} with these pixels, see {@link Map#hashOf(Map2D)}
+     */
+    @Override
+    public int hashCode() {
+        return Map.hashOf(this);
+    }
+
+    @Override
+    public int fill(Pixel2D xy, int new_v, boolean cyclic) {
+        checkWritable();
+        return MapSearch.fill(this, xy, new_v, cyclic, null);
+    }
+
+    @Override
+    public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic) {
+        return MapSearch.shortestPath(this, p1, p2, obsColor, cyclic, null);
+    }
+
+    @Override
+    public Map2D allDistance(Pixel2D start, int obsColor, boolean cyclic) {
+        return MapSearch.allDistance(this, start, obsColor, cyclic, null);
+    }
+
+    /**
+     * @return {@code true} iff both maps currently share the same storage for the chunk holding {@code (x,y)}
+     */
+    boolean sharesChunkWith(ChunkedMap other, int x, int y) {
+        return chunks[chunkOf(x, y)] == other.chunks[other.chunkOf(x, y)];
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private int chunkOf(int x, int y) {
+        return (x >> SHIFT) * chunksY + (y >> SHIFT);
+    }
+
+    private static int offsetOf(int x, int y) {
+        return (x & MASK) << SHIFT | (y & MASK);
+    }
+
+    private void resize(int w, int h) {
+        this.width = w;
+        this.height = h;
+        this.chunksY = (h + MASK) >> SHIFT;
+        int count = ((w + MASK) >> SHIFT) * chunksY;
+        this.chunks = new int[count][];
+        this.owner = new int[count];
+        this.tableShared = false;
+    }
+
+    private int[] writableChunk(int c) {
+        if (tableShared) { //the chunk table itself is shared with the last snapshot
+            chunks = chunks.clone();
+            tableShared = false;
+        }
+        if (owner[c] != epoch) {
+            chunks[c] = chunks[c].clone();
+            owner[c] = epoch;
+        }
+        return chunks[c];
+    }
+
+    private void checkWritable() {
+        if (isFrozen()) {
+            throw new UnsupportedOperationException("read-only map snapshot");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedMapTest {
+
+    //basics
+    @Test
+    void matchesMapAcrossChunkBorders() {
+        int[][] arr = new int[150][70];
+        for (int x = 0; x < 150; x++) {
+            for (int y = 0; y < 70; y++) {
+                arr[x][y] = x * 1000 + y;
+            }
+        }
+        ChunkedMap c = new ChunkedMap(arr);
+
+        assertEquals(150, c.getWidth());
+        assertEquals(70, c.getHeight());
+        assertEquals(new Map(arr), c);
+        assertEquals(new Map(arr).hashCode(), c.hashCode());
+        assertEquals(c.hashCode(), c.snapshot().hashCode());
+        assertArrayEquals(arr, c.getMap());
+        assertEquals(149069, c.getPixel(149, 69));
+    }
+
+    @Test
+    void uniformInitSharesAndCopiesOnWrite() {
+        ChunkedMap c = new ChunkedMap(100, 100, 3);
+        c.setPixel(0, 0, 9);
+
+        assertEquals(9, c.getPixel(0, 0));
+        assertEquals(3, c.getPixel(99, 99));
+        assertEquals(3, c.getPixel(1, 0));
+    }
+
+
+    //snapshots
+    @Test
+    void snapshotIsFrozen() {
+        ChunkedMap c = new ChunkedMap(10, 10, 0);
+        c.setPixel(5, 5, 1);
+
+        ChunkedMap snap = c.snapshot();
+        c.setPixel(5, 5, 2);
+        c.drawRect(new Index2D(0, 0), new Index2D(9, 9), 4);
+
+        assertTrue(snap.isFrozen());
+        assertEquals(1, snap.getPixel(5, 5));
+        assertEquals(0, snap.getPixel(0, 0));
+        assertEquals(4, c.getPixel(5, 5));
+        assertThrows(UnsupportedOperationException.class, () -> snap.setPixel(0, 0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> snap.fill(new Index2D(0, 0), 1, false));
+    }
+
+    @Test
+    void snapshotOnlyCopiesTouchedChunks() {
+        ChunkedMap c = new ChunkedMap(new int[200][200]);
+        ChunkedMap snap = c.snapshot();
+
+        c.setPixel(0, 0, 1);
+
+        assertFalse(c.sharesChunkWith(snap, 0, 0));
+        assertTrue(c.sharesChunkWith(snap, 199, 199));
+        assertEquals(0, snap.getPixel(0, 0));
+    }
+
+    @Test
+    void publishedSnapshotIsConsistentForReaders() throws InterruptedException {
+        ChunkedMap c = new ChunkedMap(64, 64, 0);
+        c.publish();
+        AtomicBoolean torn = new AtomicBoolean(false);
+        AtomicBoolean done = new AtomicBoolean(false);
+
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                ChunkedMap snap = c.latest();
+                int first = snap.getPixel(0, 0);
+                if (snap.getPixel(63, 63) != first) {
+                    torn.set(true);
+                }
+            }
+        });
+        reader.start();
+
+        //the writer always changes both corners before publishing
+        for (int i = 1; i <= 10000; i++) {
+            c.setPixel(0, 0, i);
+            c.setPixel(63, 63, i);
+            c.publish();
+        }
+        done.set(true);
+        reader.join();
+
+        assertFalse(torn.get());
+        assertEquals(10000, c.latest().getPixel(63, 63));
+    }
+}
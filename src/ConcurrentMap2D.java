@@ -0,0 +1,377 @@
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe {@link Map2D} wrapper that guards another map with striped locks.
+ * <p>
+ * The map is split into tiles of {@value #TILE}*{@value #TILE} pixels, and every tile is guarded by one of a fixed
+ * number of {@link StampedLock} stripes. Single pixel reads use an optimistic read and only fall back to a read lock
+ * when they race with a writer. Writes lock just the stripes covering the pixels they may touch (the bounding box
+ * for the draw methods), so writers on disjoint regions do not block each other. Whole-map operations
+ * ({@code fill}, {@code shortestPath}, {@code allDistance}, {@code getMap}, {@code equals}, ...) lock every stripe,
+ * so they always see a consistent state.
+ * <p>
+ * Stripes are always locked in increasing order, which rules out deadlocks between writers.
+ * All access to the wrapped map must go through this wrapper.
+ *
+ * @author Joshua Hall
+ */
+public class ConcurrentMap2D implements Map2D {
+    static final int TILE = 64;
+    private static final int SHIFT = 6;
+
+    private final Map2D map;
+    private final StampedLock[] stripes;
+    private final int mask;
+
+    /**
+     * Wraps a map using a default number of stripes (a power of two, about 4 per available processor).
+     *
+     * @param map the map to guard (non-null)
+     */
+    public ConcurrentMap2D(Map2D map) {
+        this(map, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Wraps a map with the given number of lock stripes (rounded up to a power of two).
+     *
+     * @param map     the map to guard (non-null)
+     * @param stripes the number of locks (&gt; 0)
+     */
+    public ConcurrentMap2D(Map2D map, int stripes) {
+        if (map == null) {
+            throw new NullPointerException("null map");
+        }
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be >0. you have: " + stripes);
+        }
+
+        int n = Integer.highestOneBit(stripes);
+        if (n < stripes) {
+            n <<= 1;
+        }
+        this.map = map;
+        this.stripes = new StampedLock[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new StampedLock();
+        }
+        this.mask = n - 1;
+    }
+
+    @Override
+    public void init(int w, int h, int v) {
+        long[] stamps = writeLockAll();
+        try {
+            map.init(w, h, v);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public void init(int[][] arr) {
+        long[] stamps = writeLockAll();
+        try {
+            map.init(arr);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public int[][] getMap() {
+        long[] stamps = readLockAll();
+        try {
+            return map.getMap();
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return map.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return map.getHeight();
+    }
+
+    /**
+     * Returns the pixel value at a given coord, using an optimistic read of the pixel's stripe.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the pixel value at {@code (x,y)}
+     */
+    @Override
+    public int getPixel(int x, int y) {
+        StampedLock lock = stripes[stripeOf(x >> SHIFT, y >> SHIFT)];
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int v = map.getPixel(x, y);
+                if (lock.validate(stamp)) {
+                    return v;
+                }
+            } catch (RuntimeException e) {
+                //raced with a writer (e.g. a rescale), retry under the lock below
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return map.getPixel(x, y);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int getPixel(Pixel2D p) {
+        if (p == null) {
+            throw new NullPointerException("null pixel");
+        }
+        return getPixel(p.getX(), p.getY());
+    }
+
+    @Override
+    public void setPixel(int x, int y, int v) {
+        StampedLock lock = stripes[stripeOf(x >> SHIFT, y >> SHIFT)];
+        long stamp = lock.writeLock();
+        try {
+            map.setPixel(x, y, v);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void setPixel(Pixel2D p, int v) {
+        if (p == null) {
+            throw new NullPointerException("null pixel");
+        }
+        setPixel(p.getX(), p.getY(), v);
+    }
+
+    @Override
+    public boolean isInside(Pixel2D p) {
+        return map.isInside(p);
+    }
+
+    @Override
+    public boolean sameDimensions(Map2D p) {
+        return map.sameDimensions(p);
+    }
+
+    @Override
+    public void addMap2D(Map2D p) {
+        long[] stamps = writeLockAll();
+        try {
+            map.addMap2D(p);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public void mul(double scalar) {
+        long[] stamps = writeLockAll();
+        try {
+            map.mul(scalar);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public void rescale(double sx, double sy) {
+        long[] stamps = writeLockAll();
+        try {
+            map.rescale(sx, sy);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public void drawCircle(Pixel2D center, double rad, int color) {
+        if (center == null || rad <= 0) {
+            return;
+        }
+
+        int r = (int) Math.ceil(rad);
+        long[] stamps = writeLock(center.getX() - r, center.getY() - r, center.getX() + r, center.getY() + r);
+        try {
+            map.drawCircle(center, rad, color);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public void drawLine(Pixel2D p1, Pixel2D p2, int color) {
+        if (p1 == null || p2 == null) {
+            return;
+        }
+
+        long[] stamps = writeLock(Math.min(p1.getX(), p2.getX()), Math.min(p1.getY(), p2.getY()),
+                Math.max(p1.getX(), p2.getX()), Math.max(p1.getY(), p2.getY()));
+        try {
+            map.drawLine(p1, p2, color);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public void drawRect(Pixel2D p1, Pixel2D p2, int color) {
+        if (p1 == null || p2 == null) {
+            return;
+        }
+
+        long[] stamps = writeLock(Math.min(p1.getX(), p2.getX()), Math.min(p1.getY(), p2.getY()),
+                Math.max(p1.getX(), p2.getX()), Math.max(p1.getY(), p2.getY()));
+        try {
+            map.drawRect(p1, p2, color);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public boolean equals(Object ob) {
+        if (this == ob) {
+            return true;
+        }
+
+        long[] stamps = readLockAll();
+        try {
+            return map.equals(ob);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    /**
+     * @return the hash of the wrapped map's dimensions and pixels (see {@link Map#hashOf(Map2D)}), read under every
+     * stripe lock
+     */
+    @Override
+    public int hashCode() {
+        long[] stamps = readLockAll();
+        try {
+            return Map.hashOf(map);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public int fill(Pixel2D xy, int new_v, boolean cyclic) {
+        long[] stamps = writeLockAll();
+        try {
+            return map.fill(xy, new_v, cyclic);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic) {
+        long[] stamps = readLockAll();
+        try {
+            return map.shortestPath(p1, p2, obsColor, cyclic);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    @Override
+    public Map2D allDistance(Pixel2D start, int obsColor, boolean cyclic) {
+        long[] stamps = readLockAll();
+        try {
+            return map.allDistance(start, obsColor, cyclic);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private int stripeOf(int tileX, int tileY) {
+        int h = tileX * 0x9E3779B1 + tileY; //spread neighbouring tiles over different stripes
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Write-locks the stripes of all the tiles intersecting the (clamped) box, in increasing order.
+     * The returned array holds one stamp per stripe, 0 for the stripes that were not locked.
+     * <p>
+     * The box is clamped to the size read before locking, so if a resize (which holds every stripe) got in first,
+     * the stripes are released and the box is locked again for the new size.
+     */
+    private long[] writeLock(int minX, int minY, int maxX, int maxY) {
+        while (true) {
+            int w = map.getWidth(), h = map.getHeight();
+            long[] stamps = writeLock(minX, minY, maxX, maxY, w, h);
+            if (map.getWidth() == w && map.getHeight() == h) {
+                return stamps;
+            }
+            unlockAll(stamps);
+        }
+    }
+
+    /**
+     * Write-locks the stripes of the box clamped to a {@code w*h} map. At least one stripe is always locked, so the
+     * size can not change until the stripes are released.
+     */
+    private long[] writeLock(int minX, int minY, int maxX, int maxY, int w, int h) {
+        int tx1 = Math.max(Math.min(maxX, w - 1), 0) >> SHIFT;
+        int ty1 = Math.max(Math.min(maxY, h - 1), 0) >> SHIFT;
+        int tx0 = Math.min(Math.max(minX, 0) >> SHIFT, tx1), ty0 = Math.min(Math.max(minY, 0) >> SHIFT, ty1);
+        if ((long) (tx1 - tx0 + 1) * (ty1 - ty0 + 1) >= stripes.length) {
+            return writeLockAll(); //the box most likely touches every stripe anyway
+        }
+
+        boolean[] needed = new boolean[stripes.length];
+        for (int tx = tx0; tx <= tx1; tx++) {
+            for (int ty = ty0; ty <= ty1; ty++) {
+                needed[stripeOf(tx, ty)] = true;
+            }
+        }
+
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            if (needed[i]) {
+                stamps[i] = stripes[i].writeLock();
+            }
+        }
+        return stamps;
+    }
+
+    private long[] writeLockAll() {
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].writeLock();
+        }
+        return stamps;
+    }
+
+    private long[] readLockAll() {
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].readLock();
+        }
+        return stamps;
+    }
+
+    private void unlockAll(long[] stamps) {
+        for (int i = stamps.length - 1; i >= 0; i--) {
+            if (stamps[i] != 0) {
+                stripes[i].unlock(stamps[i]);
+            }
+        }
+    }
+}
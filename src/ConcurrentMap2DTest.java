@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentMap2DTest {
+
+    @Test
+    void delegatesToWrappedMap() {
+        Map base = new Map(5, 5, 0);
+        ConcurrentMap2D c = new ConcurrentMap2D(base, 3);
+
+        c.setPixel(1, 2, 7);
+        c.drawRect(new Index2D(3, 3), new Index2D(4, 4), 2);
+
+        assertEquals(7, base.getPixel(1, 2));
+        assertEquals(7, c.getPixel(1, 2));
+        assertEquals(2, c.getPixel(4, 4));
+        assertEquals(base, c);
+        assertEquals(base.hashCode(), c.hashCode());
+        assertEquals(4, c.fill(new Index2D(3, 3), 5, false));
+    }
+
+    @Test
+    void parallelWritersOnDisjointRegions() throws InterruptedException {
+        int threads = 8, size = 256;
+        ConcurrentMap2D c = new ConcurrentMap2D(new Map(size, size, 0));
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int band = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    int x0 = band * (size / threads);
+                    c.drawRect(new Index2D(x0, 0), new Index2D(x0 + size / threads - 1, size - 1), i);
+                    for (int y = 0; y < size; y++) {
+                        c.setPixel(x0, y, c.getPixel(x0, y) + 1);
+                    }
+                }
+            }));
+        }
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            int x0 = t * (size / threads);
+            assertEquals(50, c.getPixel(x0, 7)); //last rect (49) + 1
+            assertEquals(49, c.getPixel(x0 + 1, 7));
+        }
+    }
+
+    @Test
+    void readersSeeConsistentStateDuringWrites() throws InterruptedException {
+        ConcurrentMap2D c = new ConcurrentMap2D(new Map(100, 100, 0));
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 200; i++) {
+                c.drawRect(new Index2D(0, 0), new Index2D(99, 99), i);
+            }
+        });
+        writer.start();
+
+        for (int i = 0; i < 50; i++) {
+            int[][] snap = c.getMap();
+            int v = snap[0][0];
+            assertEquals(v, snap[99][99]);
+            assertEquals(v, snap[50][10]);
+        }
+        writer.join();
+    }
+
+    @Test
+    void drawsRacingAResizeLockTheNewSize() throws InterruptedException {
+        AtomicBoolean armed = new AtomicBoolean();
+        AtomicBoolean farPixelWritten = new AtomicBoolean();
+        ConcurrentMap2D[] c = new ConcurrentMap2D[1];
+        c[0] = new ConcurrentMap2D(new Map(1, 1, 0) {
+            @Override
+            public int getHeight() {
+                int h = super.getHeight();
+                if (armed.getAndSet(false)) {
+                    //a resize gets in between reading the size and locking the stripes
+                    Thread resizer = new Thread(() -> c[0].init(512, 512, 0));
+                    resizer.start();
+                    try {
+                        resizer.join();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return h;
+            }
+
+            @Override
+            public void drawRect(Pixel2D p1, Pixel2D p2, int color) {
+                //a writer on a far tile must wait for the rect
+                Thread other = new Thread(() -> {
+                    c[0].setPixel(511, 511, 2);
+                    farPixelWritten.set(true);
+                });
+                other.start();
+                try {
+                    other.join(200);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                assertFalse(farPixelWritten.get());
+                super.drawRect(p1, p2, color);
+            }
+        }, 64);
+
+        armed.set(true);
+        c[0].drawRect(new Index2D(0, 0), new Index2D(511, 511), 1);
+
+        assertEquals(512, c[0].getWidth());
+        assertEquals(1, c[0].getPixel(0, 0));
+    }
+}
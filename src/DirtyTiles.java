@@ -0,0 +1,119 @@
+import java.util.BitSet;
+
+/**
+ * Records which parts of a map changed since the last repaint, as a bitmap of square tiles of
+ * {@value #TILE}*{@value #TILE} pixels. Tile {@code (tx,ty)} covers the pixels
+ * {@code [tx*TILE, (tx+1)*TILE) * [ty*TILE, (ty+1)*TILE)} and has index {@code ty*tilesX()+tx}.
+ * <p>
+ * Enabled with {@link Map#setDirtyTracking(boolean)} and used by {@link Ex2_GUI#drawDirty(Map)}.
+ * Not thread-safe.
+ *
+ * @author Joshua Hall
+ */
+public class DirtyTiles {
+    public static final int TILE = 32;
+    private static final int SHIFT = 5;
+
+    private final int width, height, tilesX, tilesY;
+    private final BitSet bits;
+
+    /**
+     * Creates a tracker for a w*h map, with every tile marked dirty (nothing has been drawn yet).
+     *
+     * @param w the width of the map (&gt; 0)
+     * @param h the height of the map (&gt; 0)
+     */
+    public DirtyTiles(int w, int h) {
+        this.width = w;
+        this.height = h;
+        this.tilesX = (w + TILE - 1) >> SHIFT;
+        this.tilesY = (h + TILE - 1) >> SHIFT;
+        this.bits = new BitSet(tilesX * tilesY);
+        markAll();
+    }
+
+    /**
+     * Marks the tiles intersecting the box {@code [x0,x1]*[y0,y1]} (inclusive, clipped to the map) as dirty.
+     *
+     * @param x0 the left column
+     * @param y0 the bottom row
+     * @param x1 the right column
+     * @param y1 the top row
+     */
+    public void mark(int x0, int y0, int x1, int y1) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, width - 1);
+        y1 = Math.min(y1, height - 1);
+        if (x0 > x1 || y0 > y1) {
+            return;
+        }
+
+        int tx0 = x0 >> SHIFT, tx1 = x1 >> SHIFT;
+        for (int ty = y0 >> SHIFT; ty <= y1 >> SHIFT; ty++) {
+            bits.set(ty * tilesX + tx0, ty * tilesX + tx1 + 1);
+        }
+    }
+
+    /**
+     * Marks the tile holding pixel {@code (x,y)} (inside the map) as dirty.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    public void mark(int x, int y) {
+        bits.set((y >> SHIFT) * tilesX + (x >> SHIFT));
+    }
+
+    /**
+     * Marks the whole map as dirty.
+     */
+    public void markAll() {
+        bits.set(0, tilesX * tilesY);
+    }
+
+    /**
+     * Forgets all the dirty tiles, e.g. after a repaint.
+     */
+    public void clear() {
+        bits.clear();
+    }
+
+    /**
+     * @return {@code true} iff no tile is dirty
+     */
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    /**
+     * @return the number of dirty tiles
+     */
+    public int count() {
+        return bits.cardinality();
+    }
+
+    /**
+     * Returns the index of the first dirty tile at or after {@code from}, like {@link BitSet#nextSetBit(int)}.
+     *
+     * @param from the tile index to start from
+     * @return the tile index, or -1 if there is none
+     */
+    public int nextDirty(int from) {
+        return bits.nextSetBit(from);
+    }
+
+    /**
+     * @return the number of tile columns
+     */
+    public int tilesX() {
+        return tilesX;
+    }
+
+    /**
+     * @return the number of tile rows
+     */
+    public int tilesY() {
+        return tilesY;
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirtyTilesTest {
+
+    private Map map;
+
+    @BeforeEach
+    void setUp() {
+        map = new Map(100, 70, 0); //4*3 tiles
+        map.setDirtyTracking(true);
+        map.dirtyTiles().clear();
+    }
+
+    private boolean isDirty(int tx, int ty) {
+        DirtyTiles d = map.dirtyTiles();
+        return d.nextDirty(ty * d.tilesX() + tx) == ty * d.tilesX() + tx;
+    }
+
+    @Test
+    void trackingIsOffByDefault() {
+        assertNull(new Map(5).dirtyTiles());
+    }
+
+    @Test
+    void startsAllDirty() {
+        Map m = new Map(100, 70, 0);
+        m.setDirtyTracking(true);
+
+        assertEquals(4, m.dirtyTiles().tilesX());
+        assertEquals(3, m.dirtyTiles().tilesY());
+        assertEquals(12, m.dirtyTiles().count());
+    }
+
+    @Test
+    void setPixelMarksItsTile() {
+        map.setPixel(33, 65, 1);
+
+        assertEquals(1, map.dirtyTiles().count());
+        assertTrue(isDirty(1, 2));
+    }
+
+    @Test
+    void drawMethodsMarkWhatTheyTouch() {
+        map.drawRect(new Index2D(0, 0), new Index2D(40, 10), 1);
+        assertEquals(2, map.dirtyTiles().count());
+        map.dirtyTiles().clear();
+
+        map.drawLine(new Index2D(0, 0), new Index2D(99, 69), 2);
+        assertTrue(isDirty(0, 0));
+        assertTrue(isDirty(3, 2));
+        assertFalse(isDirty(3, 0));
+        map.dirtyTiles().clear();
+
+        map.drawCircle(new Index2D(80, 40), 3, 3);
+        assertEquals(1, map.dirtyTiles().count());
+        assertTrue(isDirty(2, 1));
+    }
+
+    @Test
+    void fillAndWindowWritesMarkTiles() {
+        map.drawRect(new Index2D(70, 0), new Index2D(70, 69), 1);
+        map.dirtyTiles().clear();
+
+        map.fill(new Index2D(99, 0), 5, false);
+        assertEquals(6, map.dirtyTiles().count()); //columns 71..99
+        map.dirtyTiles().clear();
+
+        map.window(10, 10, 5, 5).setPixel(0, 0, 1);
+        assertTrue(isDirty(0, 0));
+        assertEquals(1, map.dirtyTiles().count());
+    }
+
+    @Test
+    void wholeMapChangesMarkEverything() {
+        map.mul(2);
+        assertEquals(12, map.dirtyTiles().count());
+
+        map.rescale(0.5, 0.5);
+        assertEquals(2, map.dirtyTiles().tilesX());
+        assertEquals(4, map.dirtyTiles().count());
+    }
+}
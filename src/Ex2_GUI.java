@@ -1,7 +1,12 @@
 import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -14,12 +19,28 @@ import java.util.Scanner;
  *
  */
 public class Ex2_GUI {
+    private static final MapRenderer RENDERER = new MapRenderer();
+    private static final HeatMapRenderer HEAT_RENDERER = new HeatMapRenderer();
+    private static BufferedImage frame; //the last rendered map, reused by drawDirty
+    private static Map2D framed; //the map rendered into frame
+    private static final int VIEW_SIZE = 768; //canvas size of the pyramid viewer, in screen pixels
+    private static final int FRAME_MS = 1000 / 30; //frame budget of the search animation
+    private static final int VISITED_ARGB = 0xff9ecae1, FRONTIER_ARGB = 0xff3182bd;
+
+    /**
+     * Draws a map on the {@link StdDraw} canvas, one square per pixel (see {@link #colorOf(int)} for the colours).
+     * The map is rendered into an image by {@link MapRenderer}, which is then drawn with a single blit.
+     *
+     * @param map the map to draw
+     */
     public static void drawMap(Map2D map) {
         if (map == null) {
             System.err.println("map is null");
             return;
         }
 
+        MapEvents.DrawMap event = new MapEvents.DrawMap();
+        event.begin();
         int width = map.getWidth();
         int height = map.getHeight();
 
@@ -28,15 +49,251 @@ public class Ex2_GUI {
 
         StdDraw.setXscale(-0.5, width - 0.5);
         StdDraw.setYscale(-0.5, height - 0.5);
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                int v = map.getPixel(i, j);
-                StdDraw.setPenColor(colorOf(v));
-                StdDraw.filledSquare(i, j, 0.5);
+        if (frame == null || frame.getWidth() != width || frame.getHeight() != height) {
+            frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        RENDERER.render(map, frame);
+        framed = map;
+        StdDraw.picture((width - 1) / 2.0, (height - 1) / 2.0, frame, width, height);
+
+        long showStart = System.nanoTime();
+        StdDraw.show();
+        commit(event, (long) width * height, false, System.nanoTime() - showStart);
+        if (map instanceof Map && ((Map) map).dirtyTiles() != null) {
+            ((Map) map).dirtyTiles().clear(); //everything is up to date now
+        }
+    }
+
+    /**
+     * Draws a map of many different values (e.g. an {@link Map2D#allDistance(Pixel2D, int, boolean)} result) on the
+     * {@link StdDraw} canvas with a colour gradient, see {@link HeatMapRenderer}.
+     *
+     * @param map the map to draw
+     */
+    public static void drawHeatMap(Map2D map) {
+        if (map == null) {
+            System.err.println("map is null");
+            return;
+        }
+
+        int width = map.getWidth();
+        int height = map.getHeight();
+
+        StdDraw.enableDoubleBuffering();
+        StdDraw.clear();
+        StdDraw.setXscale(-0.5, width - 0.5);
+        StdDraw.setYscale(-0.5, height - 0.5);
+        StdDraw.picture((width - 1) / 2.0, (height - 1) / 2.0, HEAT_RENDERER.render(map), width, height);
+        StdDraw.show();
+    }
+
+    /**
+     * Repaints only the parts of the map that changed since the last draw (see {@link Map#setDirtyTracking(boolean)}),
+     * then clears the dirty tiles. Neighbouring dirty tiles of a row are blitted as one clipped rectangle, so the
+     * time depends on the size of the change, not of the map. Falls back to {@link #drawMap(Map2D)} if tracking is off, everything is dirty or
+     * the map was not the last one drawn.
+     *
+     * @param map a map with dirty tracking on (non-null)
+     */
+    public static void drawDirty(Map map) {
+        if (map == null) {
+            System.err.println("map is null");
+            return;
+        }
+
+        DirtyTiles dirty = map.dirtyTiles();
+        if (dirty == null || dirty.count() == dirty.tilesX() * dirty.tilesY()
+                || framed != map || frame.getWidth() != map.getWidth() || frame.getHeight() != map.getHeight()) {
+            drawMap(map);
+            return;
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        MapEvents.DrawMap event = new MapEvents.DrawMap();
+        event.begin();
+        int width = map.getWidth();
+        int height = map.getHeight();
+
+        StdDraw.enableDoubleBuffering();
+        StdDraw.setXscale(-0.5, width - 0.5);
+        StdDraw.setYscale(-0.5, height - 0.5);
+        RENDERER.renderDirty(map, frame);
+        long cells = 0;
+        int tilesX = dirty.tilesX();
+        for (int t = dirty.nextDirty(0); t >= 0; ) {
+            //merge the dirty tiles of a row that are next to each other into one blit
+            int ty = t / tilesX, end = t + 1;
+            while (end % tilesX != 0 && dirty.nextDirty(end) == end) {
+                end++;
             }
+            int x0 = (t - ty * tilesX) * DirtyTiles.TILE, x1 = Math.min((end - ty * tilesX) * DirtyTiles.TILE, width);
+            int y0 = ty * DirtyTiles.TILE, y1 = Math.min(y0 + DirtyTiles.TILE, height);
+            StdDraw.picture((width - 1) / 2.0, (height - 1) / 2.0, frame, width, height,
+                    x0 - 0.5, y0 - 0.5, x1 - 0.5, y1 - 0.5);
+            cells += (long) (x1 - x0) * (y1 - y0);
+            t = dirty.nextDirty(end);
         }
 
+        long showStart = System.nanoTime();
         StdDraw.show();
+        commit(event, cells, true, System.nanoTime() - showStart);
+        dirty.clear();
+    }
+
+    /**
+     * Interactive viewer for maps too big for {@link #drawMap(Map2D)}: only the tiles of a {@link MapPyramid} that
+     * are visible at the current zoom are drawn, from the level that has about one pixel per screen pixel.
+     * Drag with the mouse to pan, type {@code +} / {@code -} to zoom in / out around the mouse, use the arrow keys to
+     * pan, {@code r} to see the whole map again and {@code q} to quit.
+     *
+     * @param pyramid the pyramid of the map to view (non-null)
+     */
+    public static void view(MapPyramid pyramid) {
+        int width = pyramid.levelWidth(0), height = pyramid.levelHeight(0);
+        StdDraw.setCanvasSize(VIEW_SIZE, VIEW_SIZE);
+        StdDraw.enableDoubleBuffering();
+
+        //the view is the square [cx-half, cx+half] * [cy-half, cy+half] of map coordinates
+        double cx = (width - 1) / 2.0, cy = (height - 1) / 2.0, half = Math.max(width, height) / 2.0;
+        double grabX = 0, grabY = 0, lastX = Double.NaN, lastY = Double.NaN;
+        boolean dragging = false, changed = true;
+
+        while (true) {
+            if (changed) {
+                drawView(pyramid, cx, cy, half);
+                changed = false;
+            }
+            StdDraw.pause(15);
+
+            //pan by keeping the map point that was grabbed under the mouse (only on fresh mouse events)
+            double mx = StdDraw.mouseX(), my = StdDraw.mouseY();
+            if (StdDraw.isMousePressed()) {
+                if (!dragging) {
+                    grabX = mx;
+                    grabY = my;
+                    dragging = true;
+                } else if (mx != lastX || my != lastY) {
+                    cx += grabX - mx;
+                    cy += grabY - my;
+                    changed = true;
+                }
+            } else {
+                dragging = false;
+            }
+            lastX = mx;
+            lastY = my;
+
+            double step = half / 4;
+            if (StdDraw.isKeyPressed(KeyEvent.VK_LEFT)) {
+                cx -= step;
+                changed = true;
+            }
+            if (StdDraw.isKeyPressed(KeyEvent.VK_RIGHT)) {
+                cx += step;
+                changed = true;
+            }
+            if (StdDraw.isKeyPressed(KeyEvent.VK_DOWN)) {
+                cy -= step;
+                changed = true;
+            }
+            if (StdDraw.isKeyPressed(KeyEvent.VK_UP)) {
+                cy += step;
+                changed = true;
+            }
+
+            while (StdDraw.hasNextKeyTyped()) {
+                char c = StdDraw.nextKeyTyped();
+                double zoom = c == '+' || c == '=' ? 0.5 : c == '-' ? 2 : 1;
+                if (zoom != 1 && half * zoom >= 2 && half * zoom <= 2.0 * Math.max(width, height)) {
+                    //keep the map point under the mouse where it is
+                    cx = mx + (cx - mx) * zoom;
+                    cy = my + (cy - my) * zoom;
+                    half *= zoom;
+                    changed = true;
+                } else if (c == 'r') {
+                    cx = (width - 1) / 2.0;
+                    cy = (height - 1) / 2.0;
+                    half = Math.max(width, height) / 2.0;
+                    changed = true;
+                } else if (c == 'q') {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Animates a {@link Map2D#shortestPath(Pixel2D, Pixel2D, int, boolean)} search: the search runs at full speed on
+     * its own thread and reports its wavefronts (see {@link SearchObserver}), while this thread draws whatever arrived
+     * since the last frame at most once every {@value #FRAME_MS}ms, so rendering never slows the search down.
+     * The newest cells are dark blue, older ones light blue, and the path is drawn on top at the end.
+     *
+     * @param map      the map to search (non-null)
+     * @param p1       starting pixel
+     * @param p2       finishing pixel
+     * @param obsColor the color which is addressed as an obstacle.
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @return the path that was found, or {@code null}
+     */
+    public static Pixel2D[] animate(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic) {
+        int width = map.getWidth(), height = map.getHeight();
+        BufferedImage image = RENDERER.render(map);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        Wavefronts events = new Wavefronts();
+        Pixel2D[][] result = new Pixel2D[1][];
+        Thread search = new Thread(() -> {
+            try {
+                result[0] = MapSearch.shortestPath(map, p1, p2, obsColor, cyclic, events);
+            } finally {
+                events.searchEnded(); //also when the search returned early or threw, without calling finished
+            }
+        }, "animated search");
+        search.setDaemon(true);
+        search.start();
+
+        StdDraw.enableDoubleBuffering();
+        StdDraw.setXscale(-0.5, width - 0.5);
+        StdDraw.setYscale(-0.5, height - 0.5);
+        int[] frontier = new int[0];
+        boolean done = false;
+        while (!done) {
+            long start = System.nanoTime();
+            done = events.isDone(); //read before draining, so the last frame has every cell
+            int[] batch = events.drain();
+
+            for (int cell : frontier) {
+                pixels[(height - 1 - cell % height) * width + cell / height] = VISITED_ARGB;
+            }
+            for (int cell : batch) {
+                pixels[(height - 1 - cell % height) * width + cell / height] = FRONTIER_ARGB;
+            }
+            frontier = batch;
+
+            StdDraw.picture((width - 1) / 2.0, (height - 1) / 2.0, image, width, height);
+            StdDraw.show();
+            int left = FRAME_MS - (int) ((System.nanoTime() - start) / 1_000_000);
+            if (!done && left > 0) {
+                StdDraw.pause(left);
+            }
+        }
+
+        try {
+            search.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pixel2D[] path = result[0];
+        if (path != null) {
+            for (Pixel2D p : path) {
+                pixels[(height - 1 - p.getY()) * width + p.getX()] = MapExporter.PATH_ARGB;
+            }
+            StdDraw.picture((width - 1) / 2.0, (height - 1) / 2.0, image, width, height);
+            StdDraw.show();
+        }
+        return path;
     }
 
     /**
@@ -50,6 +307,29 @@ public class Ex2_GUI {
      * @throws FileNotFoundException
      */
     public static Map2D loadMap(String mapFileName) throws FileNotFoundException {
+        MapEvents.LoadMap event = new MapEvents.LoadMap();
+        event.begin();
+        Map2D map = null;
+        try {
+            map = readMap(mapFileName);
+            return map;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = mapFileName;
+                event.bytes = new File(mapFileName).length();
+                event.valid = map != null;
+                event.width = map != null ? map.getWidth() : 0;
+                event.height = map != null ? map.getHeight() : 0;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Parses a map file, see {@link #loadMap(String)}.
+     */
+    private static Map2D readMap(String mapFileName) throws FileNotFoundException {
         try (Scanner in = new Scanner(new File(mapFileName))) {
             if (!in.hasNextInt()) {
                 System.err.println("empty / no width");
@@ -97,6 +377,8 @@ public class Ex2_GUI {
             return;
         }
 
+        MapEvents.SaveMap event = new MapEvents.SaveMap();
+        event.begin();
         int w = map.getWidth();
         int h = map.getHeight();
 
@@ -113,22 +395,36 @@ public class Ex2_GUI {
                 out.println();
             }
 
-            System.out.println("saved successfully");
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = mapFileName;
+            event.bytes = new File(mapFileName).length();
+            event.width = w;
+            event.height = h;
+            event.commit();
+        }
+        System.out.println("saved successfully");
     }
 
     /**
      * Example to demonstrate how to package works.
+     * With {@code -view <map file> [cache dir]} the map is opened in the tile {@link #view(MapPyramid)}er instead, and
+     * with {@code -animate <map file> x1 y1 x2 y2 [obsColor]} a shortest path search is {@link #animate}d
+     * (the obstacle colour defaults to 1).
      *
      * @param a name of map file to use (optional)
-     * @throws FileNotFoundException
+     * @throws IOException
      */
-    public static void main(String[] a) throws FileNotFoundException {
+    public static void main(String[] a) throws IOException {
+        String mode = a.length > 0 && a[0].startsWith("-") ? a[0] : "";
+        int arg = mode.isEmpty() ? 0 : 1;
         String mapFile = "map.txt";
-        if (a.length > 0) {
-            mapFile = a[0];
+        if (a.length > arg) {
+            mapFile = a[arg];
         }
 
         Map2D map = loadMap(mapFile);
@@ -137,12 +433,64 @@ public class Ex2_GUI {
             return;
         }
 
-        drawMap(map);
+        switch (mode) {
+            case "-view":
+                view(a.length > arg + 1 ? new MapPyramid(map, new File(a[arg + 1]), RENDERER) : new MapPyramid(map, RENDERER));
+                System.exit(0);
+                break;
+            case "-animate":
+                if (a.length < arg + 5) {
+                    System.err.println("usage: -animate <map file> x1 y1 x2 y2 [obsColor]");
+                    return;
+                }
+                int[] v = Arrays.stream(a, arg + 1, a.length).mapToInt(Integer::parseInt).toArray();
+                Pixel2D[] path = animate(map, new Index2D(v[0], v[1]), new Index2D(v[2], v[3]), v.length > 4 ? v[4] : 1, false);
+                System.out.println(path == null ? "no path" : "path length: " + path.length);
+                break;
+            default:
+                drawMap(map);
+        }
     }
 
     /// ///////////// Private functions ///////////////
 
-    private static Color colorOf(int v) {
+    private static void commit(MapEvents.DrawMap event, long cells, boolean incremental, long showTime) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.cells = cells;
+            event.incremental = incremental;
+            event.showTime = showTime;
+            event.commit();
+        }
+    }
+
+    /**
+     * Draws the tiles of the view {@code [cx-half, cx+half] * [cy-half, cy+half]}.
+     */
+    private static void drawView(MapPyramid pyramid, double cx, double cy, double half) {
+        double x0 = cx - half, x1 = cx + half, y0 = cy - half, y1 = cy + half;
+        int level = pyramid.levelFor(2 * half / VIEW_SIZE);
+        double scale = 1L << level; //map pixels per level pixel
+
+        StdDraw.clear(Color.DARK_GRAY);
+        StdDraw.setXscale(x0, x1);
+        StdDraw.setYscale(y0, y1);
+        for (int[] t : pyramid.visibleTiles(level, x0 + 0.5, y0 + 0.5, x1 + 0.5, y1 + 0.5)) {
+            BufferedImage tile = pyramid.tile(level, t[0], t[1]);
+            double w = tile.getWidth() * scale, h = tile.getHeight() * scale;
+            double left = t[0] * MapPyramid.TILE * scale - 0.5, bottom = t[1] * MapPyramid.TILE * scale - 0.5;
+            StdDraw.picture(left + w / 2, bottom + h / 2, tile, w, h);
+        }
+        StdDraw.show();
+    }
+
+    /**
+     * The colour of a pixel value: 0 to 9 have their own colour, all other values are light gray.
+     *
+     * @param v a pixel value
+     * @return its colour
+     */
+    static Color colorOf(int v) {
         switch (v) {
             case 0:
                 return Color.WHITE;
@@ -169,4 +517,51 @@ public class Ex2_GUI {
 
         }
     }
+
+    /// ///////////// Private classes ///////////////
+
+    /**
+     * Collects the wavefronts of a search running on another thread until the drawing thread drains them.
+     * Many wavefronts may be coalesced into one frame, the search never waits for the drawing.
+     */
+    private static final class Wavefronts implements SearchObserver {
+        private int[] cells = new int[1024];
+        private int size;
+        private volatile boolean done;
+
+        @Override
+        public synchronized void wavefront(int distance, int[] queue, int from, int to, int height) {
+            int n = to - from;
+            if (size + n > cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(size + n, cells.length * 2));
+            }
+            System.arraycopy(queue, from, cells, size, n);
+            size += n;
+        }
+
+        @Override
+        public void finished(boolean reached) {
+            done = true;
+        }
+
+        /**
+         * Called by the search thread once the search returned, whether or not it reported {@link #finished}.
+         */
+        void searchEnded() {
+            done = true;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Returns and forgets every cell collected since the last call.
+         */
+        synchronized int[] drain() {
+            int[] batch = Arrays.copyOf(cells, size);
+            size = 0;
+            return batch;
+        }
+    }
 }
\ No newline at end of file
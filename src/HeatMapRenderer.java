@@ -0,0 +1,239 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
+
+/**
+ * Renders maps with a wide range of values, such as {@link Map2D#allDistance(Pixel2D, int, boolean)} results, with a
+ * continuous colour gradient instead of the 10 fixed colours of {@link MapRenderer}.
+ * The value range is found in one pass (min/max), or from histograms when percentiles are used to ignore outliers.
+ * Values are then mapped through a 256-entry lookup table, and -1 (unreachable) gets its own colour.
+ * <p>
+ * As with {@link MapRenderer}, image row 0 is the top of the map. Large maps are rendered in parallel, in blocks of
+ * {@value #BLOCK} columns.
+ *
+ * @author Joshua Hall
+ */
+public class HeatMapRenderer {
+    /**
+     * The value that gets its own colour.
+     */
+    public static final int UNREACHABLE = -1;
+    /**
+     * The default gradient, from low to high values (viridis).
+     */
+    public static final int[] VIRIDIS = {0xff440154, 0xff3b528b, 0xff21918c, 0xff5ec962, 0xfffde725};
+    private static final int BLOCK = 64; //columns per parallel task
+    private static final int PARALLEL_AREA = 1 << 16; //smaller maps are rendered on the calling thread
+    private static final int MAX_BINS = 1 << 16; //histogram resolution for percentiles
+
+    private final int[] lut = new int[256];
+    private final int unreachable;
+    private final double low, high;
+
+    /**
+     * Creates a renderer with the {@link #VIRIDIS} gradient over the full range of values, and unreachable pixels in
+     * dark gray.
+     */
+    public HeatMapRenderer() {
+        this(VIRIDIS, 0xff404040, 0, 100);
+    }
+
+    /**
+     * Creates a renderer.
+     *
+     * @param stops       ARGB colours spread evenly from the low to the high end of the range (at least 2)
+     * @param unreachable ARGB colour of {@link #UNREACHABLE} pixels
+     * @param low         the percentile of the values that gets the first colour ({@code 0} for the minimum)
+     * @param high        the percentile of the values that gets the last colour ({@code 100} for the maximum)
+     */
+    public HeatMapRenderer(int[] stops, int unreachable, double low, double high) {
+        if (stops.length < 2) {
+            throw new IllegalArgumentException("need at least 2 colour stops. you have: " + stops.length);
+        }
+        if (low < 0 || high > 100 || low > high) {
+            throw new IllegalArgumentException("invalid percentiles: " + low + ", " + high);
+        }
+        this.unreachable = unreachable;
+        this.low = low;
+        this.high = high;
+
+        for (int i = 0; i < lut.length; i++) {
+            double t = i * (stops.length - 1) / 255.0;
+            int s = Math.min((int) t, stops.length - 2);
+            lut[i] = lerp(stops[s], stops[s + 1], t - s);
+        }
+    }
+
+    /**
+     * Renders a map into a new image.
+     *
+     * @param map the map to render (non-null)
+     * @return a {@code width*height} image of type {@link BufferedImage#TYPE_INT_ARGB}
+     */
+    public BufferedImage render(Map2D map) {
+        BufferedImage image = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        render(map, image);
+        return image;
+    }
+
+    /**
+     * Renders a map into an existing image, e.g. to reuse it between frames.
+     *
+     * @param map   the map to render (non-null)
+     * @param image an image of type {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_RGB}
+     *              with the same dimensions as the map
+     */
+    public void render(Map2D map, BufferedImage image) {
+        int w = map.getWidth(), h = map.getHeight();
+        if (image.getWidth() != w || image.getHeight() != h) {
+            throw new IllegalArgumentException("image is " + image.getWidth() + "x" + image.getHeight() + ", map is " + w + "x" + h);
+        }
+
+        int[][] raw = map instanceof Map ? ((Map) map).raw() : map.getMap();
+        int[] range = range(raw, h);
+        int lo = range[0];
+        double scale = range[1] > lo ? 255.0 / ((double) range[1] - lo) : 0;
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        blocks(w, h).forEach(b -> {
+            int x0 = b * BLOCK, x1 = Math.min(x0 + BLOCK, w);
+            for (int y = 0; y < h; y++) {
+                int row = (h - 1 - y) * w;
+                for (int x = x0; x < x1; x++) {
+                    pixels[row + x] = colour(raw[x][y], lo, scale);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the colour of a value for a given range.
+     *
+     * @param v  a pixel value
+     * @param lo the value that gets the first colour
+     * @param hi the value that gets the last colour
+     * @return its ARGB colour
+     */
+    public int argbOf(int v, int lo, int hi) {
+        return colour(v, lo, hi > lo ? 255.0 / ((double) hi - lo) : 0);
+    }
+
+    /**
+     * Returns the range of values this renderer spreads the gradient over, ignoring {@link #UNREACHABLE} pixels.
+     *
+     * @param map a map
+     * @return {@code {lo, hi}} ({@code {0, 0}} if every pixel is unreachable)
+     */
+    public int[] range(Map2D map) {
+        return range(map instanceof Map ? ((Map) map).raw() : map.getMap(), map.getHeight());
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private int colour(int v, int lo, double scale) {
+        if (v == UNREACHABLE) {
+            return unreachable;
+        }
+        int i = (int) ((v - (double) lo) * scale);
+        return lut[i < 0 ? 0 : Math.min(i, 255)];
+    }
+
+    /**
+     * Finds the min/max (one pass) and, for percentiles, refines them with histograms.
+     */
+    private int[] range(int[][] raw, int h) {
+        int w = raw.length;
+        int[] mins = new int[(w + BLOCK - 1) / BLOCK], maxs = new int[mins.length];
+        long[] counts = new long[mins.length];
+        blocks(w, h).forEach(b -> {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE, n = 0;
+            for (int x = b * BLOCK; x < Math.min(b * BLOCK + BLOCK, w); x++) {
+                for (int v : raw[x]) {
+                    if (v != UNREACHABLE) {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                        n++;
+                    }
+                }
+            }
+            mins[b] = min;
+            maxs[b] = max;
+            counts[b] = n;
+        });
+
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        long n = 0;
+        for (int b = 0; b < mins.length; b++) {
+            min = Math.min(min, mins[b]);
+            max = Math.max(max, maxs[b]);
+            n += counts[b];
+        }
+        if (n == 0) {
+            return new int[]{0, 0};
+        }
+        if ((low == 0 && high == 100) || min == max) {
+            return new int[]{min, max};
+        }
+
+        return new int[]{percentile(raw, n, low, min, max), percentile(raw, n, high, min, max)};
+    }
+
+    /**
+     * Finds the value of rank {@code ceil(p% * n)} with a histogram of at most {@link #MAX_BINS} bins over
+     * {@code [min, max]}. If the bins are wider than one value, a second histogram over the bin that holds the rank
+     * gives the exact value.
+     */
+    private static int percentile(int[][] raw, long n, double p, int min, int max) {
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * n));
+        long span = (long) max - min + 1;
+        int bins = (int) Math.min(span, MAX_BINS);
+        double binWidth = (double) span / bins;
+
+        long[] hist = histogram(raw, min, max, bins, binWidth);
+        int bin = 0;
+        long before = 0;
+        while (before + hist[bin] < rank) {
+            before += hist[bin++];
+        }
+        long lo = min + (long) Math.ceil(bin * binWidth), hi = min + (long) Math.ceil((bin + 1) * binWidth) - 1;
+        if (binWidth <= 1 || lo >= hi) {
+            return (int) lo;
+        }
+
+        hist = histogram(raw, (int) lo, (int) Math.min(hi, max), (int) (Math.min(hi, max) - lo + 1), 1);
+        bin = 0;
+        while (before + hist[bin] < rank) {
+            before += hist[bin++];
+        }
+        return (int) (lo + bin);
+    }
+
+    /**
+     * Counts the values in {@code [lo, hi]} (apart from {@link #UNREACHABLE}) into bins of {@code binWidth} values.
+     */
+    private static long[] histogram(int[][] raw, int lo, int hi, int bins, double binWidth) {
+        long[] hist = new long[bins];
+        for (int[] col : raw) {
+            for (int v : col) {
+                if (v != UNREACHABLE && v >= lo && v <= hi) {
+                    hist[Math.min((int) ((v - (long) lo) / binWidth), bins - 1)]++;
+                }
+            }
+        }
+        return hist;
+    }
+
+    private static IntStream blocks(int w, int h) {
+        IntStream blocks = IntStream.range(0, (w + BLOCK - 1) / BLOCK);
+        return (long) w * h > PARALLEL_AREA ? blocks.parallel() : blocks;
+    }
+
+    private static int lerp(int a, int b, double t) {
+        int argb = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int ca = (a >>> shift) & 0xff, cb = (b >>> shift) & 0xff;
+            argb |= ((int) Math.round(ca + (cb - ca) * t) & 0xff) << shift;
+        }
+        return argb;
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeatMapRendererTest {
+    private static final int[] GRAY = {0xff000000, 0xffffffff};
+
+    @Test
+    void spreadsTheGradientFromMinToMax() {
+        Map m = new Map(new int[][]{
+                {10, 20},
+                {-1, 1010}
+        });
+
+        BufferedImage img = new HeatMapRenderer(GRAY, 0xffff0000, 0, 100).render(m);
+
+        assertEquals(0xff000000, img.getRGB(0, 1)); //map (0,0), the minimum
+        assertEquals(0xffffffff, img.getRGB(1, 0)); //map (1,1), the maximum
+        assertEquals(0xffff0000, img.getRGB(1, 1)); //map (1,0), unreachable
+        assertEquals(0xff020202, img.getRGB(0, 0)); //20 is 1% of the way
+    }
+
+    @Test
+    void rangeIgnoresUnreachable() {
+        Map m = new Map(5, 5, -1);
+        HeatMapRenderer r = new HeatMapRenderer();
+        assertArrayEquals(new int[]{0, 0}, r.range(m));
+
+        m.setPixel(2, 2, 7);
+        m.setPixel(3, 3, 3);
+        assertArrayEquals(new int[]{3, 7}, r.range(m));
+        r.render(m); //a range of a single value does not divide by 0
+    }
+
+    @Test
+    void percentilesClipOutliers() {
+        Map m = new Map(100, 100, 0);
+        for (int x = 0; x < 100; x++) {
+            for (int y = 0; y < 100; y++) {
+                m.setPixel(x, y, x);
+            }
+        }
+        m.setPixel(99, 99, 1_000_000);
+
+        HeatMapRenderer r = new HeatMapRenderer(GRAY, 0, 5, 95);
+
+        assertArrayEquals(new int[]{4, 94}, r.range(m));
+        BufferedImage img = r.render(m);
+        assertEquals(0xffffffff, img.getRGB(97, 50));
+        assertEquals(0xff000000, img.getRGB(2, 50));
+    }
+
+    @Test
+    void allDistanceRendersInParallelLikeSequentially() {
+        Map m = new Map(700, 300, 0);
+        m.drawRect(new Index2D(300, 0), new Index2D(310, 250), 1);
+        Map2D dist = m.allDistance(new Index2D(0, 0), 1, false);
+        HeatMapRenderer r = new HeatMapRenderer();
+        int[] range = r.range(dist);
+
+        BufferedImage img = r.render(dist);
+
+        assertEquals(0, range[0]);
+        for (int x = 0; x < 700; x += 13) {
+            for (int y = 0; y < 300; y += 7) {
+                assertEquals(r.argbOf(dist.getPixel(x, y), range[0], range[1]), img.getRGB(x, 299 - y));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new HeatMapRenderer(new int[]{1}, 0, 0, 100));
+    }
+}
@@ -0,0 +1,55 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A {@link SearchMetrics} sink that records every search as a Java Flight Recorder event ({@code ex2.Search}), so
+ * searches show up in production recordings next to GC and allocation data, e.g. with
+ * {@code java -XX:StartFlightRecording=filename=rec.jfr ...} and {@code jfr print --events ex2.Search rec.jfr}.
+ * If the event is not enabled in the running recording this does nothing.
+ *
+ * @author Joshua Hall
+ */
+public class JfrSearchMetrics implements SearchMetrics {
+
+    @Override
+    public void searched(Kind kind, long expanded, int peakFrontier, long nanos, boolean earlyExit) {
+        SearchEvent event = new SearchEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.kind = kind.name();
+        event.expanded = expanded;
+        event.peakFrontier = peakFrontier;
+        event.wallTime = nanos;
+        event.earlyExit = earlyExit;
+        event.commit();
+    }
+
+    /// /////////////////// Private Classes ///////////////////////
+
+    @Name("ex2.Search")
+    @Label("Map Search")
+    @Category({"Ex2", "Search"})
+    @Description("A BFS search over a map: fill, shortestPath, allDistance or withinDistance")
+    static class SearchEvent extends Event {
+        @Label("Kind")
+        String kind;
+
+        @Label("Cells Expanded")
+        long expanded;
+
+        @Label("Peak Frontier")
+        int peakFrontier;
+
+        @Label("Wall Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long wallTime;
+
+        @Label("Early Exit")
+        boolean earlyExit;
+    }
+}
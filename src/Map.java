@@ -1,5 +1,7 @@
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.IntBinaryOperator;
 
 /**
  * This class represents a 2D map (int[w][h]) as a "screen" or a raster matrix or maze over integers.
@@ -11,8 +13,9 @@ import java.util.LinkedList;
 public class Map implements Map2D, Serializable {
     private int[][] map;
     private int width, height;
+    private transient DirtyTiles dirty; //null unless dirty tracking is on
 
-    private static final int[][] DIRS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final VarHandle PIXEL = MethodHandles.arrayElementVarHandle(int[].class);
 
     /**
      * Constructs a w*h 2D raster map with an init value v.
@@ -43,6 +46,27 @@ public class Map implements Map2D, Serializable {
         init(data);
     }
 
+    /**
+     * Used by {@link #wrap(int[][])}.
+     */
+    private Map() {
+    }
+
+    /**
+     * Creates a map that takes ownership of the given (rectangular, non-empty) array, without copying it.
+     * Used internally for freshly computed arrays, the caller must not keep a reference to {@code data}.
+     *
+     * @param data the {@code [x][y]} pixel array
+     * @return a new {@link Map} backed by {@code data}
+     */
+    static Map wrap(int[][] data) {
+        Map m = new Map();
+        m.map = data;
+        m.width = data.length;
+        m.height = data[0].length;
+        return m;
+    }
+
     /**
      * Initialises the map to given w,h dimensions with the given v value.
      *
@@ -64,6 +88,7 @@ public class Map implements Map2D, Serializable {
                 map[i][j] = v;
             }
         }
+        resetDirty();
     }
 
     /**
@@ -90,6 +115,7 @@ public class Map implements Map2D, Serializable {
         for (int i = 0; i < this.width; i++) {
             System.arraycopy(arr[i], 0, map[i], 0, this.height);
         }
+        resetDirty();
     }
 
     /**
@@ -168,6 +194,9 @@ public class Map implements Map2D, Serializable {
             throw new IndexOutOfBoundsException("x/y out of bounds");
         }
         map[x][y] = v;
+        if (dirty != null) {
+            dirty.mark(x, y);
+        }
     }
 
     /**
@@ -184,6 +213,55 @@ public class Map implements Map2D, Serializable {
         setPixel(p.getX(), p.getY(), v);
     }
 
+    /**
+     * Atomically sets the pixel at (x,y) to {@code v} if it currently holds {@code expected}.
+     * Safe to call from several threads at once (as are the other atomic methods below).
+     *
+     * @param x        the x coordinate in range 0 to {@code width -1}
+     * @param y        the y coordinate in range 0 to {@code height -1}
+     * @param expected the value the pixel is expected to hold
+     * @param v        the new value
+     * @return {@code true} iff the pixel held {@code expected} and was updated
+     */
+    public boolean compareAndSet(int x, int y, int expected, int v) {
+        return PIXEL.compareAndSet(column(x, y), y, expected, v);
+    }
+
+    /**
+     * Atomically adds {@code delta} to the pixel at (x,y), e.g. to accumulate counts from many threads.
+     *
+     * @param x     the x coordinate in range 0 to {@code width -1}
+     * @param y     the y coordinate in range 0 to {@code height -1}
+     * @param delta the value to add
+     * @return the previous value of the pixel
+     */
+    public int getAndAdd(int x, int y, int delta) {
+        return (int) PIXEL.getAndAdd(column(x, y), y, delta);
+    }
+
+    /**
+     * Atomically replaces the pixel at (x,y) with {@code op(pixel, v)}.
+     * The function may be re-applied when threads race on the same pixel, so it should be side effect free.
+     *
+     * @param x  the x coordinate in range 0 to {@code width -1}
+     * @param y  the y coordinate in range 0 to {@code height -1}
+     * @param v  the second argument of {@code op}
+     * @param op combines the current pixel value with {@code v}, e.g. {@code Math::max}
+     * @return the new value of the pixel
+     */
+    public int accumulateAndGet(int x, int y, int v, IntBinaryOperator op) {
+        int[] col = column(x, y);
+        int prev = (int) PIXEL.getVolatile(col, y);
+        while (true) {
+            int next = op.applyAsInt(prev, v);
+            int witness = (int) PIXEL.compareAndExchange(col, y, prev, next);
+            if (witness == prev) {
+                return next;
+            }
+            prev = witness;
+        }
+    }
+
     /**
      * Returns {@code true} iff the given pixel lies within the bounds of the map.
      *
@@ -222,6 +300,7 @@ public class Map implements Map2D, Serializable {
                 map[i][j] += p.getPixel(i, j);
             }
         }
+        markDirty(0, 0, width - 1, height - 1);
     }
 
     /**
@@ -236,6 +315,7 @@ public class Map implements Map2D, Serializable {
                 map[i][j] = (int) (map[i][j] * scalar); //maybe Math.round would be nicer
             }
         }
+        markDirty(0, 0, width - 1, height - 1);
     }
 
     /**
@@ -246,28 +326,27 @@ public class Map implements Map2D, Serializable {
      */
     @Override
     public void rescale(double sx, double sy) {
-        if (sx <= 0 || sy <= 0) {
-            throw new IllegalArgumentException("sx/sy must be >0. you have: sx=" + sx + ", sy=" + sy);
-        }
-
-        int newW = (int) (width * sx);
-        int newH = (int) (height * sy);
-        if (newW == 0 || newH == 0) {
-            throw new RuntimeException("size is 0");
-        }
+        rescale(sx, sy, MapRescaler.Mode.NEAREST);
+    }
 
-        int[][] newM = new int[newW][newH];
-        for (int i = 0; i < newW; i++) {
-            for (int j = 0; j < newH; j++) {
-                int interW = clamp((int) (i / sx), width - 1);
-                int interH = clamp((int) (j / sy), height - 1);
-                newM[i][j] = getPixel(interW, interH);
-            }
+    /**
+     * Rescales the map by a given scale factor, computing each new pixel with the given {@link MapRescaler.Mode}.
+     * Large maps are rescaled in parallel (see {@link MapRescaler}).
+     *
+     * @param sx   x direction scale factor (&gt; 0)
+     * @param sy   y direction scale factor (&gt; 0)
+     * @param mode how to compute each new pixel (non-null)
+     */
+    public void rescale(double sx, double sy, MapRescaler.Mode mode) {
+        if (mode == null) {
+            throw new NullPointerException("null mode");
         }
 
+        int[][] newM = MapRescaler.rescale(map, width, height, sx, sy, mode);
         this.map = newM;
-        this.width = newW;
-        this.height = newH;
+        this.width = newM.length;
+        this.height = newM[0].length;
+        resetDirty();
     }
 
     /**
@@ -280,57 +359,66 @@ public class Map implements Map2D, Serializable {
      */
     @Override
     public void drawCircle(Pixel2D center, double rad, int color) {
-        if (!isInside(center) || rad <= 0) {
-            return;
-        }
+        Rasterizer.drawCircle(this, center, rad, color);
+    }
 
-        for (int i = 0; i < width; i++) { //maybe use the enclosing square
-            for (int j = 0; j < height; j++) {
-                int offsetX = i - center.getX();
-                int offsetY = j - center.getY();
-                if (isInCircle(rad, offsetX, offsetY)) {
-                    setPixel(i, j, color);
-                }
-            }
-        }
+    /**
+     * Draws many circles of the same radius in one call (e.g. sensor footprints), see {@link #drawCircle}.
+     * Centres that are {@code null} or outside the map are skipped.
+     *
+     * @param centers centres of the circles
+     * @param rad     circle radius (&gt; 0)
+     * @param color   the (new) color to be used in the drawing.
+     */
+    public void drawCircles(Pixel2D[] centers, double rad, int color) {
+        Rasterizer.drawCircles(this, centers, rad, color);
     }
 
     /**
-     * Draws a straight lines between two given pixels (both of which must be inside the map).
-     * If {@code p1==p2}, the that single pixel is coloured.
+     * Draws a straight lines between two given pixels. If {@code p1==p2}, the that single pixel is coloured.
+     * The pixels are chosen as described in {@link Map2D#drawLine}, using integer arithmetic only.
+     * Endpoints may lie outside the map, in which case only the part of the line inside the map is drawn.
      *
-     * @param p1    start point (non-null, inside the map)
-     * @param p2    end point (non-null, inside the map)
+     * @param p1    start point (non-null)
+     * @param p2    end point (non-null)
      * @param color colour used to draw the line.
      */
     @Override
     public void drawLine(Pixel2D p1, Pixel2D p2, int color) {
-        if (p1 == null || p2 == null || !isInside(p1) || !isInside(p2)) {
-            return;
-        }
+        Rasterizer.drawLine(this, p1, p2, color);
+    }
 
-        if (p1.equals(p2)) {
-            setPixel(p1, color);
-            return;
-        }
+    /**
+     * Draws the connected segments {@code points[0]-points[1]-...-points[n-1]} (clipped to the map), e.g. to render
+     * a path returned by {@link #shortestPath} in one call.
+     *
+     * @param points the vertices of the polyline
+     * @param color  colour used to draw the lines.
+     */
+    public void drawPolyline(Pixel2D[] points, int color) {
+        Rasterizer.drawPolyline(this, points, color);
+    }
 
-        int x1 = p1.getX(), x2 = p2.getX(), y1 = p1.getY(), y2 = p2.getY();
-        int dx = Math.abs(x2 - x1);
-        int dy = Math.abs(y2 - y1);
+    /**
+     * Draws many lines in one call: {@code starts[i]-ends[i]} for every {@code i} (clipped to the map).
+     *
+     * @param starts start points
+     * @param ends   end points (same length as {@code starts})
+     * @param color  colour used to draw the lines.
+     */
+    public void drawLines(Pixel2D[] starts, Pixel2D[] ends, int color) {
+        Rasterizer.drawLines(this, starts, ends, color);
+    }
 
-        if (dx >= dy) { //mostly horizontal
-            if (x1 < x2) { //left to right
-                drawLineHelperX(x1, x2, y1, y2, color);
-            } else { //right to left
-                drawLineHelperX(x2, x1, y2, y1, color);
-            }
-        } else { //mostly vertical
-            if (y1 < y2) { //down to up
-                drawLineHelperY(x1, x2, y1, y2, color);
-            } else { //up to down
-                drawLineHelperY(x2, x1, y2, y1, color);
-            }
-        }
+    /**
+     * Colours every given pixel that is inside the map, e.g. a path returned by a cyclic {@link #shortestPath}
+     * (where {@link #drawPolyline} would join pixels on opposite edges across the map).
+     *
+     * @param points the pixels ({@code null} entries are skipped)
+     * @param color  the (new) color to be used in the drawing.
+     */
+    public void drawPoints(Pixel2D[] points, int color) {
+        Rasterizer.drawPoints(this, points, color);
     }
 
     /**
@@ -342,16 +430,56 @@ public class Map implements Map2D, Serializable {
      */
     @Override
     public void drawRect(Pixel2D p1, Pixel2D p2, int color) {
-        if (p1 == null || p2 == null || !isInside(p1) || !isInside(p2)) {
-            return;
-        }
+        Rasterizer.drawRect(this, p1, p2, color);
+    }
 
-        int x1 = p1.getX(), x2 = p2.getX(), y1 = p1.getY(), y2 = p2.getY();
-        for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
-            for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
-                setPixel(x, y, color);
-            }
-        }
+    /**
+     * Fills in many rectangles in one call (e.g. building footprints), each column of each rectangle with a single
+     * {@link java.util.Arrays#fill}. As in {@link #drawRect}, rectangles with a corner outside the map are skipped.
+     *
+     * @param rects packed corners {@code x1,y1,x2,y2} of each rectangle (length is a multiple of 4)
+     * @param color value used to fill in the rectangles
+     */
+    public void drawRects(int[] rects, int color) {
+        Rasterizer.drawRects(this, rects, color);
+    }
+
+    /**
+     * Fills a polygon (e.g. a zone boundary) and draws its outline. The interior follows the even-odd rule and is
+     * rasterized with a scanline / active edge table algorithm, writing whole column spans at a time.
+     * Vertices may lie outside the map, only the part inside the map is drawn.
+     *
+     * @param vertices the vertices of the polygon, in order (non-null entries, the polygon is closed automatically)
+     * @param color    the (new) color to be used in the drawing.
+     */
+    public void fillPolygon(Pixel2D[] vertices, int color) {
+        Rasterizer.fillPolygon(this, vertices, color);
+    }
+
+    /**
+     * Draws a line of the given thickness (a filled rectangle around the line from {@code p1} to {@code p2}).
+     * A thickness of 1 or less draws the same pixels as {@link #drawLine}.
+     *
+     * @param p1        start point (non-null)
+     * @param p2        end point (non-null)
+     * @param thickness the width of the line in pixels
+     * @param color     colour used to draw the line.
+     */
+    public void drawThickLine(Pixel2D p1, Pixel2D p2, double thickness, int color) {
+        Rasterizer.drawThickLine(this, p1, p2, thickness, color);
+    }
+
+    /**
+     * Draws a filled, axis aligned ellipse: all the pixels with {@code (dx/rx)^2+(dy/ry)^2<=1}.
+     * Unlike {@link #drawCircle}, the centre may lie outside the map.
+     *
+     * @param center centre of the ellipse (non-null)
+     * @param rx     radius along x (&gt; 0)
+     * @param ry     radius along y (&gt; 0)
+     * @param color  the (new) color to be used in the drawing.
+     */
+    public void fillEllipse(Pixel2D center, double rx, double ry, int color) {
+        Rasterizer.fillEllipse(this, center, rx, ry, color);
     }
 
     /**
@@ -386,6 +514,34 @@ public class Map implements Map2D, Serializable {
         return true;
     }
 
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, see {@link #hashOf(Map2D)}.
+     *
+     * @return the hash of the dimensions and pixel values
+     */
+    @Override
+    public int hashCode() {
+        return hashOf(this);
+    }
+
+    /**
+     * The hash code of every {@link Map2D} implementation whose {@code equals} compares dimensions and pixel values,
+     * so equal maps hash alike whatever their class.
+     *
+     * @param map the map to hash
+     * @return the hash of the dimensions and of the pixels, column by column
+     */
+    static int hashOf(Map2D map) {
+        int w = map.getWidth(), h = map.getHeight();
+        int hash = 31 * w + h;
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                hash = 31 * hash + map.getPixel(x, y);
+            }
+        }
+        return hash;
+    }
+
     /**
      * Flood fills the region starting from the pixel {@code xy}, implementing the algorithm <a href="https://en.wikipedia.org/wiki/Flood_fill">given here.</a>
      * The option to "loop" around is toggled with {@code cyclic}. This is done using modular arithmetics.
@@ -397,48 +553,7 @@ public class Map implements Map2D, Serializable {
      */
     @Override
     public int fill(Pixel2D xy, int new_v, boolean cyclic) {
-        if (xy == null || !isInside(xy)) {
-            return 0;
-        }
-
-        int old_v = getPixel(xy);
-        if (old_v == new_v) {
-            return 0;
-        }
-
-        boolean[][] visited = new boolean[width][height];
-        LinkedList<Pixel2D> pixels = new LinkedList<>();
-
-        visited[xy.getX()][xy.getY()] = true;
-        pixels.add(xy);
-        int count = 0;
-
-        while (!pixels.isEmpty()) {
-            Pixel2D curr = pixels.remove();
-            int x = curr.getX(), y = curr.getY();
-            setPixel(x, y, new_v);
-            count++;
-
-            for (int[] dir : DIRS) {
-                int newX = x + dir[0];
-                int newY = y + dir[1];
-
-                if (cyclic) {
-                    newX = (newX + width) % width; //newX+width handles newX=-1
-                    newY = (newY + height) % height;
-                } else {
-                    if (!isInside(newX, newY)) {
-                        continue;
-                    }
-                }
-
-                if (!visited[newX][newY] && getPixel(newX, newY) == old_v) {
-                    visited[newX][newY] = true;
-                    pixels.add(new Index2D(newX, newY));
-                }
-            }
-        }
-        return count;
+        return MapSearch.fill(this, xy, new_v, cyclic, null);
     }
 
     /**
@@ -453,60 +568,7 @@ public class Map implements Map2D, Serializable {
      */
     @Override
     public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic) {
-        if (p1 == null || p2 == null || !isInside(p1) || !isInside(p2)) {
-            return null;
-        }
-        if (getPixel(p1) == obsColor || getPixel(p2) == obsColor) {
-            return null;
-        }
-
-        if (p1.equals(p2)) {
-            return new Pixel2D[]{p1};
-        }
-
-        boolean[][] visited = new boolean[width][height];
-        Pixel2D[][] prev = new Pixel2D[width][height];
-        LinkedList<Pixel2D> pixels = new LinkedList<>();
-
-        int x1 = p1.getX(), x2 = p2.getX(), y1 = p1.getY(), y2 = p2.getY();
-        visited[x1][y1] = true;
-        pixels.add(new Index2D(x1, y1));
-
-        while (!pixels.isEmpty()) {
-            Pixel2D curr = pixels.remove();
-            int x = curr.getX(), y = curr.getY();
-
-            if (x == x2 && y == y2) {
-                break;
-            }
-
-            for (int[] dir : DIRS) {
-                int newX = x + dir[0];
-                int newY = y + dir[1];
-
-                if (cyclic) {
-                    newX = (newX + width) % width; //newX+width handles newX=-1
-                    newY = (newY + height) % height;
-                } else {
-                    if (!isInside(newX, newY)) {
-                        continue;
-                    }
-                }
-
-                if (visited[newX][newY] || getPixel(newX, newY) == obsColor) {
-                    continue;
-                }
-
-                visited[newX][newY] = true;
-                prev[newX][newY] = curr;
-                pixels.add(new Index2D(newX, newY));
-            }
-        }
-
-        if (!visited[x2][y2]) {
-            return null;
-        }
-        return finalPath(prev, x2, y2);
+        return MapSearch.shortestPath(this, p1, p2, obsColor, cyclic, null);
     }
 
     /**
@@ -520,113 +582,251 @@ public class Map implements Map2D, Serializable {
      */
     @Override
     public Map2D allDistance(Pixel2D start, int obsColor, boolean cyclic) {
-        if (start == null || !isInside(start)) {
-            return new Map(width, height, -1);
-        }
+        return MapSearch.allDistance(this, start, obsColor, cyclic, null);
+    }
 
-        int x1 = start.getX(), y1 = start.getY();
-        if (getPixel(x1, y1) == obsColor) {
-            return new Map(width, height, -1);
-        }
+    /**
+     * {@link #fill(Pixel2D, int, boolean)}, telling an observer about every wavefront of the search.
+     *
+     * @param xy       the starting pixel
+     * @param new_v    the fill colour
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param observer told about every wavefront (may be {@code null})
+     * @return the number of pixels successfully filled
+     */
+    public int fill(Pixel2D xy, int new_v, boolean cyclic, SearchObserver observer) {
+        return MapSearch.fill(this, xy, new_v, cyclic, observer);
+    }
 
-        boolean[][] visited = new boolean[width][height];
-        visited[x1][y1] = true;
+    /**
+     * {@link #shortestPath(Pixel2D, Pixel2D, int, boolean)}, telling an observer about every wavefront of the search.
+     *
+     * @param p1       starting pixel
+     * @param p2       finishing pixel
+     * @param obsColor the color which is addressed as an obstacle.
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param observer told about every wavefront (may be {@code null})
+     * @return an array of pixels representing the path from {@code p1} to {@code p2}
+     */
+    public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic, SearchObserver observer) {
+        return MapSearch.shortestPath(this, p1, p2, obsColor, cyclic, observer);
+    }
 
-        int[][] dist = new int[width][height];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                dist[x][y] = -1;
-            }
-        }
-        dist[x1][y1] = 0;
-
-        LinkedList<Pixel2D> pixels = new LinkedList<>();
-        pixels.add(new Index2D(x1, y1));
-
-        while (!pixels.isEmpty()) {
-            Pixel2D curr = pixels.remove();
-            int x = curr.getX(), y = curr.getY();
-
-            for (int[] dir : DIRS) {
-                int newX = x + dir[0];
-                int newY = y + dir[1];
-
-                if (cyclic) {
-                    newX = (newX + width) % width; //newX+width handles newX=-1
-                    newY = (newY + height) % height;
-                } else {
-                    if (!isInside(newX, newY)) {
-                        continue;
-                    }
-                }
+    /**
+     * {@link #allDistance(Pixel2D, int, boolean)}, telling an observer about every wavefront of the search.
+     *
+     * @param start    starting point
+     * @param obsColor the color representing obstacles
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param observer told about every wavefront (may be {@code null})
+     * @return a new {@link Map} with values representing the distance from {@code start}
+     */
+    public Map2D allDistance(Pixel2D start, int obsColor, boolean cyclic, SearchObserver observer) {
+        return MapSearch.allDistance(this, start, obsColor, cyclic, observer);
+    }
 
-                if (visited[newX][newY] || getPixel(newX, newY) == obsColor) {
-                    continue;
-                }
+    /**
+     * {@link #fill(Pixel2D, int, boolean, SearchObserver)} with a given neighbourhood, e.g.
+     * {@link Neighbourhood#EIGHT}.
+     *
+     * @param xy       the starting pixel
+     * @param new_v    the fill colour
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param moves    the neighbours of a pixel (non-null)
+     * @param observer told about every wavefront (may be {@code null})
+     * @return the number of pixels successfully filled
+     */
+    public int fill(Pixel2D xy, int new_v, boolean cyclic, Neighbourhood moves, SearchObserver observer) {
+        return MapSearch.fill(this, xy, new_v, cyclic, moves, observer);
+    }
 
-                visited[newX][newY] = true;
-                dist[newX][newY] = dist[x][y] + 1;
-                pixels.add(new Index2D(newX, newY));
-            }
-        }
-        return new Map(dist);
+    /**
+     * {@link #shortestPath(Pixel2D, Pixel2D, int, boolean, SearchObserver)} with a given neighbourhood, e.g.
+     * {@link Neighbourhood#EIGHT}. Every move is one step, so the path has the fewest moves.
+     *
+     * @param p1       starting pixel
+     * @param p2       finishing pixel
+     * @param obsColor the color which is addressed as an obstacle.
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param moves    the neighbours of a pixel (non-null)
+     * @param observer told about every wavefront (may be {@code null})
+     * @return an array of pixels representing the path from {@code p1} to {@code p2}
+     */
+    public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic, Neighbourhood moves,
+                                  SearchObserver observer) {
+        return MapSearch.shortestPath(this, p1, p2, obsColor, cyclic, moves, observer);
     }
 
-    /// /////////////////// Private Methods ///////////////////////
+    /**
+     * {@link #allDistance(Pixel2D, int, boolean, SearchObserver)} with a given neighbourhood, e.g.
+     * {@link Neighbourhood#EIGHT}.
+     *
+     * @param start    starting point
+     * @param obsColor the color representing obstacles
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param moves    the neighbours of a pixel (non-null)
+     * @param observer told about every wavefront (may be {@code null})
+     * @return a new {@link Map} with values representing the number of moves from {@code start}
+     */
+    public Map2D allDistance(Pixel2D start, int obsColor, boolean cyclic, Neighbourhood moves,
+                             SearchObserver observer) {
+        return MapSearch.allDistance(this, start, obsColor, cyclic, moves, observer);
+    }
 
-    private boolean isInCircle(double rad, int x, int y) {
-        return x * x + y * y <= rad * rad;
+    /**
+     * Finds the pixels within {@code maxDistance} steps of {@code start}, closest first, stopping after
+     * {@code maxCells} of them. Unlike {@link #allDistance(Pixel2D, int, boolean)} the search stops at the limits and
+     * only the reached pixels are returned, so a small neighbourhood of a huge map is cheap.
+     *
+     * @param start       starting point
+     * @param obsColor    the color representing obstacles
+     * @param cyclic      {@code true} iff we want to loop around the edge
+     * @param maxDistance the largest distance to report (&gt;= 0, {@link Integer#MAX_VALUE} for no limit)
+     * @param maxCells    the most pixels to report, the start included (&gt; 0, {@link Integer#MAX_VALUE} for no limit)
+     * @return the reached pixels with their distances
+     */
+    public SparseDistances withinDistance(Pixel2D start, int obsColor, boolean cyclic, int maxDistance, int maxCells) {
+        return MapSearch.withinDistance(this, start, obsColor, cyclic, maxDistance, maxCells, null);
     }
 
-    private int clamp(int val, int max) {
-        if (val < 0) {
-            return 0;
-        }
-        return Math.min(val, max);
+    /**
+     * {@link #withinDistance(Pixel2D, int, boolean, int, int)}, telling an observer about every wavefront of the search.
+     *
+     * @param start       starting point
+     * @param obsColor    the color representing obstacles
+     * @param cyclic      {@code true} iff we want to loop around the edge
+     * @param maxDistance the largest distance to report (&gt;= 0, {@link Integer#MAX_VALUE} for no limit)
+     * @param maxCells    the most pixels to report, the start included (&gt; 0, {@link Integer#MAX_VALUE} for no limit)
+     * @param observer    told about every wavefront (may be {@code null})
+     * @return the reached pixels with their distances
+     */
+    public SparseDistances withinDistance(Pixel2D start, int obsColor, boolean cyclic, int maxDistance, int maxCells,
+                                          SearchObserver observer) {
+        return MapSearch.withinDistance(this, start, obsColor, cyclic, maxDistance, maxCells, observer);
     }
 
-    private boolean isInside(int x, int y) {
-        return x >= 0 && x < width && y >= 0 && y < height;
+    /**
+     * Installs a sink that receives a measurement of every {@code fill}, {@code shortestPath}, {@code allDistance} and
+     * {@code withinDistance} search from now on, on any map of this package ({@link Map}, {@link MapWindow},
+     * {@link ChunkedMap}, ...).
+     *
+     * @param metrics the sink (e.g. {@link SearchCounters} or {@link JfrSearchMetrics}), or {@code null} to disable
+     */
+    public static void setSearchMetrics(SearchMetrics metrics) {
+        MapSearch.metrics = metrics;
     }
 
-    private void drawLineHelperX(int x1, int x2, int y1, int y2, int color) {
-        double m = (double) (y2 - y1) / (x2 - x1);
-        double b = y1 - m * x1;
+    /**
+     * Returns a read-only view of the whole map. No pixels are copied: the view reads straight from this map's
+     * storage, so later changes to this map are visible through it (see {@link MapWindow}).
+     *
+     * @return a read-only {@link Map2D} over this map
+     */
+    public MapWindow view() {
+        return new MapWindow(this, 0, 0, width, height, 1, 1, true);
+    }
 
-        for (int x = x1; x <= x2; x++) {
-            int y = (int) Math.round(x * m + b);
-            if (isInside(x, y)) {
-                setPixel(x, y, color);
-            }
+    /**
+     * Returns a writable window over the rectangle with bottom-left corner {@code (x,y)} and size {@code w*h}.
+     * Pixel {@code (0,0)} of the window is pixel {@code (x,y)} of this map, and both share the same storage.
+     *
+     * @param x the x coordinate of the window's origin
+     * @param y the y coordinate of the window's origin
+     * @param w the width of the window (&gt; 0)
+     * @param h the height of the window (&gt; 0)
+     * @return a {@link MapWindow} over the given region
+     */
+    public MapWindow window(int x, int y, int w, int h) {
+        return window(x, y, w, h, 1, 1);
+    }
+
+    /**
+     * Returns a writable window that samples every {@code strideX}'th column and {@code strideY}'th row of this map,
+     * starting at {@code (x,y)}. Pixel {@code (i,j)} of the window is pixel {@code (x+i*strideX, y+j*strideY)} of this map.
+     *
+     * @param x       the x coordinate of the window's origin
+     * @param y       the y coordinate of the window's origin
+     * @param w       the width of the window (&gt; 0)
+     * @param h       the height of the window (&gt; 0)
+     * @param strideX step between consecutive window columns (&gt; 0)
+     * @param strideY step between consecutive window rows (&gt; 0)
+     * @return a {@link MapWindow} over the given region
+     */
+    public MapWindow window(int x, int y, int w, int h, int strideX, int strideY) {
+        return new MapWindow(this, x, y, w, h, strideX, strideY, false);
+    }
+
+    /**
+     * Crops the map to the rectangle with bottom-left corner {@code (x,y)} and size {@code w*h}.
+     * Unlike {@link #window(int, int, int, int)}, the result is an independent (deep) copy.
+     *
+     * @param x the x coordinate of the crop's origin
+     * @param y the y coordinate of the crop's origin
+     * @param w the width of the crop (&gt; 0)
+     * @param h the height of the crop (&gt; 0)
+     * @return a new {@link Map} holding a copy of the region
+     */
+    public Map crop(int x, int y, int w, int h) {
+        return new Map(window(x, y, w, h).getMap());
+    }
+
+    /**
+     * Turns dirty-region tracking on or off. While it is on, every change to the map (through {@link #setPixel},
+     * the draw methods, {@link #fill}, {@link #addMap2D}, ...) marks the tiles it touched in {@link #dirtyTiles()},
+     * so a renderer can repaint just those (see {@link Ex2_GUI#drawDirty(Map)}).
+     * When tracking is turned on, the whole map starts out dirty. The atomic pixel operations are not tracked.
+     *
+     * @param on {@code true} to track changes
+     */
+    public void setDirtyTracking(boolean on) {
+        if (!on) {
+            dirty = null;
+        } else if (dirty == null) {
+            dirty = new DirtyTiles(width, height);
         }
     }
 
-    private void drawLineHelperY(int x1, int x2, int y1, int y2, int color) {
-        double m = (double) (x2 - x1) / (y2 - y1);
-        double b = x1 - m * y1;
+    /**
+     * @return the dirty tiles recorded since they were last cleared, or {@code null} if tracking is off
+     */
+    public DirtyTiles dirtyTiles() {
+        return dirty;
+    }
 
-        for (int y = y1; y <= y2; y++) {
-            int x = (int) Math.round(y * m + b);
-            if (isInside(x, y)) {
-                setPixel(x, y, color);
-            }
+    /**
+     * Marks the box {@code [x0,x1]*[y0,y1]} (clipped to the map) as changed, if dirty tracking is on.
+     * Used by the code that writes to {@link #raw()} directly.
+     */
+    void markDirty(int x0, int y0, int x1, int y1) {
+        if (dirty != null) {
+            dirty.mark(x0, y0, x1, y1);
         }
     }
 
-    private Pixel2D[] finalPath(Pixel2D[][] prev, int x2, int y2) {
-        int len = 0;
-        Pixel2D pixel = new Index2D(x2, y2);
-        while (pixel != null) {
-            len++;
-            pixel = prev[pixel.getX()][pixel.getY()];
+    /**
+     * Gives views over this map direct access to the underlying storage (indexed {@code [x][y]}).
+     * The array is replaced by {@link #init} and {@link #rescale}, so callers must not cache it.
+     */
+    int[][] raw() {
+        return map;
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private void resetDirty() {
+        if (dirty != null) {
+            dirty = new DirtyTiles(width, height); //the dimensions may have changed, so everything is dirty
         }
+    }
 
-        Pixel2D[] path = new Pixel2D[len];
-        pixel = new Index2D(x2, y2);
-        for (int i = len - 1; i >= 0; i--) {
-            path[i] = pixel;
-            pixel = prev[pixel.getX()][pixel.getY()];
+    private int[] column(int x, int y) {
+        if (!isInside(x, y)) {
+            throw new IndexOutOfBoundsException("x/y out of bounds");
         }
-        return path;
+        return map[x];
     }
 }
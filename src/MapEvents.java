@@ -0,0 +1,93 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for the map file I/O and rendering phases of {@link Ex2_GUI} and {@link StdDraw}, so
+ * they show up in recordings ({@code java -XX:StartFlightRecording=filename=rec.jfr ...}) with no extra agent.
+ * Every event's duration is the duration of its phase; when an event is not enabled it is never committed.
+ * See {@link JfrSearchMetrics} for the search events.
+ *
+ * @author Joshua Hall
+ */
+final class MapEvents {
+
+    private MapEvents() {
+    }
+
+    @Name("ex2.LoadMap")
+    @Label("Load Map")
+    @Category({"Ex2", "I/O"})
+    @Description("Ex2_GUI.loadMap: reading and parsing a map file")
+    static class LoadMap extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Valid")
+        boolean valid;
+    }
+
+    @Name("ex2.SaveMap")
+    @Label("Save Map")
+    @Category({"Ex2", "I/O"})
+    @Description("Ex2_GUI.saveMap: formatting and writing a map file")
+    static class SaveMap extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+    }
+
+    @Name("ex2.DrawMap")
+    @Label("Draw Map")
+    @Category({"Ex2", "Rendering"})
+    @Description("Ex2_GUI.drawMap / drawDirty: rendering a map and showing it on the StdDraw canvas")
+    static class DrawMap extends Event {
+        @Label("Cells Drawn")
+        long cells;
+
+        @Label("Incremental")
+        @Description("Only the dirty tiles were drawn")
+        boolean incremental;
+
+        @Label("Show Time")
+        @Description("Time spent in StdDraw.show, copying the frame to the screen")
+        @Timespan(Timespan.NANOSECONDS)
+        long showTime;
+    }
+
+    @Name("ex2.SaveImage")
+    @Label("Save Image")
+    @Category({"Ex2", "I/O"})
+    @Description("StdDraw.save: encoding the canvas to an image file")
+    static class SaveImage extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+    }
+}
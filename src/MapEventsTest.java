@@ -0,0 +1,45 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapEventsTest {
+
+    @Test
+    void loadAndSaveAreRecorded(@TempDir File dir) throws IOException {
+        File map = new File(dir, "map.txt"), broken = new File(dir, "broken.txt"), jfr = new File(dir, "io.jfr");
+        java.nio.file.Files.writeString(broken.toPath(), "3 3\n1 2");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("ex2.SaveMap");
+            recording.enable("ex2.LoadMap");
+            recording.start();
+            Ex2_GUI.saveMap(new Map(7, 3, 5), map.getPath());
+            Ex2_GUI.loadMap(map.getPath());
+            Ex2_GUI.loadMap(broken.getPath());
+            recording.stop();
+            recording.dump(jfr.toPath());
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfr.toPath());
+        assertEquals(3, events.size());
+
+        RecordedEvent save = events.get(0), load = events.get(1), invalid = events.get(2);
+        assertEquals("ex2.SaveMap", save.getEventType().getName());
+        assertEquals(map.length(), save.getLong("bytes"));
+        assertEquals(7, save.getInt("width"));
+        assertEquals("ex2.LoadMap", load.getEventType().getName());
+        assertEquals(map.length(), load.getLong("bytes"));
+        assertEquals(3, load.getInt("height"));
+        assertTrue(load.getBoolean("valid"));
+        assertFalse(invalid.getBoolean("valid"));
+        assertEquals(0, invalid.getInt("width"));
+    }
+}
@@ -0,0 +1,262 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless export of maps (plus optional path overlays, e.g. from {@link Map2D#shortestPath}) to PNG files.
+ * Nothing here needs a display or the {@link StdDraw} window, so it runs with {@code java.awt.headless=true}.
+ * Batches of images are rendered and written in parallel on a thread pool.
+ *
+ * @author Joshua Hall
+ */
+public class MapExporter {
+    /**
+     * The default colour of path overlays (opaque orange, as {@link java.awt.Color#ORANGE}).
+     */
+    public static final int PATH_ARGB = 0xffffc800;
+
+    private final MapRenderer renderer;
+    private final int cellSize;
+    private final int pathArgb;
+
+    /**
+     * Creates an exporter with the {@link Ex2_GUI} colours, drawing each map pixel as a {@code cellSize*cellSize} block.
+     *
+     * @param cellSize the size of a map pixel in image pixels (&gt; 0)
+     */
+    public MapExporter(int cellSize) {
+        this(new MapRenderer(), cellSize, PATH_ARGB);
+    }
+
+    /**
+     * Creates an exporter.
+     *
+     * @param renderer the palette to use (non-null)
+     * @param cellSize the size of a map pixel in image pixels (&gt; 0)
+     * @param pathArgb the colour of path overlays
+     */
+    public MapExporter(MapRenderer renderer, int cellSize, int pathArgb) {
+        if (renderer == null) {
+            throw new NullPointerException("null renderer");
+        }
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be >0. you have: " + cellSize);
+        }
+        this.renderer = renderer;
+        this.cellSize = cellSize;
+        this.pathArgb = pathArgb;
+    }
+
+    /**
+     * One image to export: a map, an optional path drawn on top of it, and the output file.
+     */
+    public static class Job {
+        final Map2D map;
+        final Pixel2D[] path;
+        final File out;
+
+        /**
+         * @param map  the map to export (non-null)
+         * @param path pixels to highlight (may be {@code null})
+         * @param out  the PNG file to write (non-null)
+         */
+        public Job(Map2D map, Pixel2D[] path, File out) {
+            if (map == null || out == null) {
+                throw new NullPointerException("null map/file");
+            }
+            this.map = map;
+            this.path = path;
+            this.out = out;
+        }
+    }
+
+    /**
+     * The outcome of {@link #exportAll(List, int)}.
+     */
+    public static class Report {
+        private final int images;
+        private final long nanos;
+
+        Report(int images, long nanos) {
+            this.images = images;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return the number of images written
+         */
+        public int images() {
+            return images;
+        }
+
+        /**
+         * @return the wall time of the whole batch, in seconds
+         */
+        public double seconds() {
+            return nanos / 1e9;
+        }
+
+        /**
+         * @return the throughput of the batch
+         */
+        public double imagesPerSecond() {
+            return nanos == 0 ? 0 : images / seconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d images in %.2fs (%.1f images/s)", images, seconds(), imagesPerSecond());
+        }
+    }
+
+    /**
+     * Renders a map and a path overlay into a new image.
+     *
+     * @param map  the map to render (non-null)
+     * @param path pixels to highlight (may be {@code null}, pixels outside the map are skipped)
+     * @return an image of {@code (width*cellSize) * (height*cellSize)} pixels
+     */
+    public BufferedImage render(Map2D map, Pixel2D[] path) {
+        int w = map.getWidth(), h = map.getHeight();
+        BufferedImage cells = renderer.render(map);
+        if (path != null) {
+            for (Pixel2D p : path) {
+                if (map.isInside(p)) {
+                    cells.setRGB(p.getX(), h - 1 - p.getY(), pathArgb);
+                }
+            }
+        }
+        if (cellSize == 1) {
+            return cells;
+        }
+
+        //scale up by copying each source row into cellSize rows of blocks
+        int[] src = ((DataBufferInt) cells.getRaster().getDataBuffer()).getData();
+        int outW = w * cellSize;
+        BufferedImage image = new BufferedImage(outW, h * cellSize, BufferedImage.TYPE_INT_ARGB);
+        int[] dst = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < h; row++) {
+            int base = row * cellSize * outW;
+            for (int x = 0; x < w; x++) {
+                int argb = src[row * w + x];
+                for (int k = 0; k < cellSize; k++) {
+                    dst[base + x * cellSize + k] = argb;
+                }
+            }
+            for (int k = 1; k < cellSize; k++) {
+                System.arraycopy(dst, base, dst, base + k * outW, outW);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Renders a map and a path overlay and writes them as a PNG.
+     *
+     * @param map  the map to render (non-null)
+     * @param path pixels to highlight (may be {@code null})
+     * @param out  the file to write
+     * @throws IOException if the file could not be written
+     */
+    public void writePng(Map2D map, Pixel2D[] path, File out) throws IOException {
+        if (!ImageIO.write(render(map, path), "png", out)) {
+            throw new IOException("no PNG writer available");
+        }
+    }
+
+    /**
+     * Exports a batch of images in parallel.
+     *
+     * @param jobs    the images to export
+     * @param threads the number of worker threads (&gt; 0)
+     * @return how many images were written and how long it took
+     * @throws IOException if any image could not be written (the other images are still attempted)
+     */
+    public Report exportAll(List<Job> jobs, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be >0. you have: " + threads);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> pending = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                pending.add(pool.submit(() -> {
+                    try {
+                        writePng(job.map, job.path, job.out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+
+            IOException failure = null;
+            for (Future<?> f : pending) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                    if (failure == null) {
+                        failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Report(jobs.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Exports map files to PNGs without a display.
+     * Usage: {@code MapExporter <outDir> <cellSize> <map file>...}, each {@code name.txt} is written to
+     * {@code outDir/name.png}.
+     *
+     * @param a the output directory, the cell size and the map files
+     * @throws IOException if a map could not be read or an image could not be written
+     */
+    public static void main(String[] a) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        if (a.length < 3) {
+            System.err.println("usage: MapExporter <outDir> <cellSize> <map file>...");
+            return;
+        }
+
+        File outDir = new File(a[0]);
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("cannot create " + outDir);
+        }
+
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 2; i < a.length; i++) {
+            Map2D map = Ex2_GUI.loadMap(a[i]);
+            if (map == null) {
+                throw new FileNotFoundException("invalid map: " + a[i]);
+            }
+            String name = new File(a[i]).getName().replaceFirst("\\.[^.]*$", "");
+            jobs.add(new Job(map, null, new File(outDir, name + ".png")));
+        }
+
+        Report report = new MapExporter(Integer.parseInt(a[1])).exportAll(jobs, Runtime.getRuntime().availableProcessors());
+        System.out.println(report);
+    }
+}
@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapExporterTest {
+
+    @Test
+    void renderScalesCellsAndOverlaysPath() {
+        Map m = new Map(3, 2, 0);
+        m.setPixel(0, 0, 1);
+
+        BufferedImage img = new MapExporter(4).render(m, new Pixel2D[]{new Index2D(2, 1), new Index2D(9, 9)});
+
+        assertEquals(12, img.getWidth());
+        assertEquals(8, img.getHeight());
+        assertEquals(Color.BLACK.getRGB(), img.getRGB(0, 7)); //(0,0) is at the bottom left
+        assertEquals(Color.BLACK.getRGB(), img.getRGB(3, 4));
+        assertEquals(Color.WHITE.getRGB(), img.getRGB(4, 4));
+        assertEquals(MapExporter.PATH_ARGB, img.getRGB(11, 0));
+        assertEquals(MapExporter.PATH_ARGB, img.getRGB(8, 3));
+    }
+
+    @Test
+    void exportAllWritesEveryPng(@TempDir File dir) throws IOException {
+        Map m = new Map(20, 10, 0);
+        m.drawRect(new Index2D(5, 0), new Index2D(5, 8), 1);
+        Pixel2D[] path = m.shortestPath(new Index2D(0, 0), new Index2D(19, 0), 1, false);
+
+        List<MapExporter.Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            jobs.add(new MapExporter.Job(m, path, new File(dir, "map" + i + ".png")));
+        }
+        MapExporter.Report report = new MapExporter(2).exportAll(jobs, 3);
+
+        assertEquals(6, report.images());
+        for (int i = 0; i < 6; i++) {
+            BufferedImage img = ImageIO.read(new File(dir, "map" + i + ".png"));
+            assertEquals(40, img.getWidth());
+            assertEquals(MapExporter.PATH_ARGB, img.getRGB(0, 19));
+        }
+    }
+
+    @Test
+    void exportAllReportsFailures(@TempDir File dir) {
+        List<MapExporter.Job> jobs = new ArrayList<>();
+        jobs.add(new MapExporter.Job(new Map(2), null, new File(dir, "missing/dir/a.png")));
+
+        assertThrows(IOException.class, () -> new MapExporter(1).exportAll(jobs, 1));
+    }
+}
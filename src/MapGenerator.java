@@ -0,0 +1,491 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic, seedable generators of synthetic maps for benchmarks and fuzz tests: perfect mazes
+ * (recursive backtracker and Prim), random obstacle fields, cellular automaton caves and rooms with corridors.
+ * The same arguments always give the same map, whatever the number of threads.
+ * <p>
+ * Walls are {@link #WALL} and floors are {@link #FLOOR}. Per-pixel work (obstacle fields, the cave automaton) runs in
+ * parallel over columns for large maps, and maps can be written to the {@link Ex2_GUI#loadMap(String)} file format
+ * with {@link #write(Map2D, OutputStream)}, or streamed without building them at all
+ * ({@link #writeObstacles(OutputStream, int, int, double, long)}).
+ *
+ * @author Joshua Hall
+ */
+public final class MapGenerator {
+    /**
+     * The value of walls / obstacles (black in {@link Ex2_GUI}).
+     */
+    public static final int WALL = 1;
+    /**
+     * The value of free pixels.
+     */
+    public static final int FLOOR = 0;
+    private static final int PARALLEL_AREA = 1 << 16; //smaller maps are generated on the calling thread
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private MapGenerator() {
+    }
+
+    /**
+     * A random obstacle field: each pixel is a {@link #WALL} with probability {@code density}.
+     * Every pixel is a hash of the seed and its position, so it can be computed in any order (or streamed).
+     *
+     * @param width   the width of the map (&gt; 0)
+     * @param height  the height of the map (&gt; 0)
+     * @param density the probability of a wall, in {@code [0, 1]}
+     * @param seed    the random seed
+     * @return a new map
+     */
+    public static Map obstacles(int width, int height, double density, long seed) {
+        checkSize(width, height);
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("density must be in [0,1]. you have: " + density);
+        }
+
+        int[][] arr = new int[width][height];
+        long threshold = threshold(density);
+        columns(width, height).forEach(x -> {
+            int[] col = arr[x];
+            for (int y = 0; y < height; y++) {
+                col[y] = obstacle(seed, (long) y * width + x, threshold);
+            }
+        });
+        return Map.wrap(arr);
+    }
+
+    /**
+     * A perfect maze (exactly one path between any two floor pixels) carved by a randomized depth-first search, which
+     * gives long, winding corridors. Maze cells are the pixels with two even coordinates, and the pixels between them
+     * are the walls (so an even width or height leaves a solid wall on the right or top).
+     *
+     * @param width  the width of the map (&gt; 0)
+     * @param height the height of the map (&gt; 0)
+     * @param seed   the random seed
+     * @return a new map
+     */
+    public static Map backtrackerMaze(int width, int height, long seed) {
+        int[][] arr = walls(width, height);
+        int cw = (width + 1) / 2, ch = (height + 1) / 2;
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] stack = new int[cw * ch];
+        int[] options = new int[4];
+        int top = 0;
+
+        arr[0][0] = FLOOR;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int cx = cell / ch, cy = cell % ch;
+            int n = unvisited(arr, cx, cy, cw, ch, options);
+            if (n == 0) {
+                top--;
+                continue;
+            }
+
+            int next = options[rnd.nextInt(n)];
+            carve(arr, cx, cy, next / ch, next % ch);
+            stack[top++] = next;
+        }
+        return Map.wrap(arr);
+    }
+
+    /**
+     * A perfect maze grown by randomized Prim's algorithm, which gives short dead ends and a lot of branching.
+     * Uses the same cell layout as {@link #backtrackerMaze(int, int, long)}.
+     *
+     * @param width  the width of the map (&gt; 0)
+     * @param height the height of the map (&gt; 0)
+     * @param seed   the random seed
+     * @return a new map
+     */
+    public static Map primMaze(int width, int height, long seed) {
+        int[][] arr = walls(width, height);
+        int cw = (width + 1) / 2, ch = (height + 1) / 2;
+        SplittableRandom rnd = new SplittableRandom(seed);
+        boolean[] seen = new boolean[cw * ch]; //in the maze or in the frontier
+        int[] frontier = new int[cw * ch];
+        int[] options = new int[4];
+        int size = 0;
+
+        arr[0][0] = FLOOR;
+        seen[0] = true;
+        size = addFrontier(0, 0, cw, ch, seen, frontier, size);
+        while (size > 0) {
+            int i = rnd.nextInt(size);
+            int cell = frontier[i];
+            frontier[i] = frontier[--size];
+
+            int cx = cell / ch, cy = cell % ch;
+            int n = carved(arr, cx, cy, cw, ch, options);
+            int from = options[rnd.nextInt(n)];
+            carve(arr, from / ch, from % ch, cx, cy);
+            size = addFrontier(cx, cy, cw, ch, seen, frontier, size);
+        }
+        return Map.wrap(arr);
+    }
+
+    /**
+     * Cave-like maps from a cellular automaton: a random field with wall probability {@code fill}, then {@code steps}
+     * rounds of the "4-5 rule" (a pixel becomes a wall if at least 5 of its 8 neighbours are walls, or stays one if at
+     * least 4 are; pixels outside the map count as walls). Each round runs in parallel over columns.
+     *
+     * @param width  the width of the map (&gt; 0)
+     * @param height the height of the map (&gt; 0)
+     * @param fill   the initial wall probability, in {@code [0, 1]} (around 0.45 gives caves)
+     * @param steps  the number of automaton rounds (&gt;= 0)
+     * @param seed   the random seed
+     * @return a new map
+     */
+    public static Map caves(int width, int height, double fill, int steps, long seed) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("steps must be >=0. you have: " + steps);
+        }
+
+        int[][] curr = obstacles(width, height, fill, seed).raw();
+        int[][] next = new int[width][height];
+        for (int s = 0; s < steps; s++) {
+            int[][] src = curr, dst = next;
+            columns(width, height).forEach(x -> {
+                for (int y = 0; y < height; y++) {
+                    int walls = 0;
+                    for (int dx = -1; dx <= 1; dx++) {
+                        for (int dy = -1; dy <= 1; dy++) {
+                            int nx = x + dx, ny = y + dy;
+                            if ((dx != 0 || dy != 0)
+                                    && (nx < 0 || ny < 0 || nx >= width || ny >= height || src[nx][ny] == WALL)) {
+                                walls++;
+                            }
+                        }
+                    }
+                    dst[x][y] = walls >= 5 || (walls == 4 && src[x][y] == WALL) ? WALL : FLOOR;
+                }
+            });
+            next = curr;
+            curr = dst;
+        }
+        return Map.wrap(curr);
+    }
+
+    /**
+     * Rectangular rooms joined by corridors: up to {@code rooms} non-overlapping rooms are placed at random, and each
+     * room is joined to the previous one by an L-shaped, 1 pixel wide corridor (so all of them are connected).
+     *
+     * @param width  the width of the map (&gt; 0)
+     * @param height the height of the map (&gt; 0)
+     * @param rooms  the number of rooms to try to place (&gt; 0)
+     * @param seed   the random seed
+     * @return a new map
+     */
+    public static Map rooms(int width, int height, int rooms, long seed) {
+        if (rooms <= 0) {
+            throw new IllegalArgumentException("rooms must be >0. you have: " + rooms);
+        }
+
+        int[][] arr = walls(width, height);
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int maxSide = Math.max(3, (int) Math.sqrt((double) width * height / rooms) / 2);
+        int[] placed = new int[4 * rooms]; //x0, y0, x1, y1 (inclusive) of every placed room
+        int count = 0;
+
+        for (int attempt = 0; attempt < 4 * rooms && count < rooms; attempt++) {
+            int w = 2 + rnd.nextInt(maxSide - 1), h = 2 + rnd.nextInt(maxSide - 1);
+            if (w > width || h > height) {
+                continue;
+            }
+            int x0 = rnd.nextInt(width - w + 1), y0 = rnd.nextInt(height - h + 1);
+            int x1 = x0 + w - 1, y1 = y0 + h - 1;
+            if (overlaps(placed, count, x0, y0, x1, y1)) {
+                continue;
+            }
+
+            for (int x = x0; x <= x1; x++) {
+                Arrays.fill(arr[x], y0, y1 + 1, FLOOR);
+            }
+            if (count > 0) {
+                int k = 4 * (count - 1);
+                corridor(arr, (placed[k] + placed[k + 2]) / 2, (placed[k + 1] + placed[k + 3]) / 2,
+                        (x0 + x1) / 2, (y0 + y1) / 2, rnd.nextBoolean());
+            }
+            placed[4 * count] = x0;
+            placed[4 * count + 1] = y0;
+            placed[4 * count + 2] = x1;
+            placed[4 * count + 3] = y1;
+            count++;
+        }
+        return Map.wrap(arr);
+    }
+
+    /**
+     * Writes a map in the {@link Ex2_GUI#loadMap(String)} file format, through a byte buffer (much faster than
+     * {@link Ex2_GUI#saveMap(Map2D, String)} for large maps).
+     *
+     * @param map the map to write (non-null)
+     * @param out the stream to write to (not closed)
+     * @throws IOException if writing fails
+     */
+    public static void write(Map2D map, OutputStream out) throws IOException {
+        int w = map.getWidth(), h = map.getHeight();
+        int[][] raw = map instanceof Map ? ((Map) map).raw() : map.getMap();
+        RowWriter rows = new RowWriter(out, w);
+        rows.header(h);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                rows.value(raw[x][y]);
+            }
+            rows.endRow();
+        }
+        rows.flush();
+    }
+
+    /**
+     * Streams an {@link #obstacles(int, int, double, long)} map to a file without building it in memory, so it works
+     * for any size. The output is the same as {@code write(obstacles(width, height, density, seed), out)}.
+     *
+     * @param out     the stream to write to (not closed)
+     * @param width   the width of the map (&gt; 0)
+     * @param height  the height of the map (&gt; 0)
+     * @param density the probability of a wall, in {@code [0, 1]}
+     * @param seed    the random seed
+     * @throws IOException if writing fails
+     */
+    public static void writeObstacles(OutputStream out, int width, int height, double density, long seed) throws IOException {
+        checkSize(width, height);
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("density must be in [0,1]. you have: " + density);
+        }
+
+        long threshold = threshold(density);
+        RowWriter rows = new RowWriter(out, width);
+        rows.header(height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                rows.value(obstacle(seed, (long) y * width + x, threshold));
+            }
+            rows.endRow();
+        }
+        rows.flush();
+    }
+
+    /**
+     * Writes a generated map to a file.
+     * Usage: {@code MapGenerator <obstacles|backtracker|prim|caves|rooms> <width> <height> <seed> <file> [param]},
+     * where param is the density (obstacles, default 0.3), the initial fill (caves, default 0.45) or the number of
+     * rooms (rooms, default 20). Obstacle fields are streamed, so they can be larger than memory.
+     *
+     * @param a the kind of map, its size, the seed, the output file and an optional parameter
+     * @throws IOException if the file could not be written
+     */
+    public static void main(String[] a) throws IOException {
+        if (a.length < 5) {
+            System.err.println("usage: MapGenerator <obstacles|backtracker|prim|caves|rooms> <width> <height> <seed> <file> [param]");
+            return;
+        }
+
+        int w = Integer.parseInt(a[1]), h = Integer.parseInt(a[2]);
+        long seed = Long.parseLong(a[3]);
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(a[4]), 1 << 16)) {
+            switch (a[0]) {
+                case "obstacles":
+                    writeObstacles(out, w, h, a.length > 5 ? Double.parseDouble(a[5]) : 0.3, seed);
+                    break;
+                case "backtracker":
+                    write(backtrackerMaze(w, h, seed), out);
+                    break;
+                case "prim":
+                    write(primMaze(w, h, seed), out);
+                    break;
+                case "caves":
+                    write(caves(w, h, a.length > 5 ? Double.parseDouble(a[5]) : 0.45, 4, seed), out);
+                    break;
+                case "rooms":
+                    write(rooms(w, h, a.length > 5 ? Integer.parseInt(a[5]) : 20, seed), out);
+                    break;
+                default:
+                    System.err.println("unknown map kind: " + a[0]);
+                    return;
+            }
+        }
+        System.out.printf("wrote %dx%d %s map in %.2fs%n", w, h, a[0], (System.nanoTime() - start) / 1e9);
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static void checkSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be >0. you have: " + width + "x" + height);
+        }
+    }
+
+    private static IntStream columns(int width, int height) {
+        IntStream columns = IntStream.range(0, width);
+        return (long) width * height > PARALLEL_AREA ? columns.parallel() : columns;
+    }
+
+    /**
+     * The unsigned 64 bit threshold below which a hash means a wall.
+     */
+    private static long threshold(double density) {
+        return density >= 1 ? -1L : (long) (density * 0x1p63) << 1;
+    }
+
+    /**
+     * Whether pixel {@code index} is an obstacle: a SplitMix64 hash of the seed and the index, compared to the
+     * threshold.
+     */
+    private static int obstacle(long seed, long index, long threshold) {
+        long z = seed + (index + 1) * GOLDEN;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return threshold == -1L || Long.compareUnsigned(z, threshold) < 0 ? WALL : FLOOR;
+    }
+
+    private static int[][] walls(int width, int height) {
+        checkSize(width, height);
+        int[][] arr = new int[width][height];
+        columns(width, height).forEach(x -> Arrays.fill(arr[x], WALL));
+        return arr;
+    }
+
+    /**
+     * Puts the maze cells around {@code (cx,cy)} that are still walls into {@code options}, returns how many.
+     */
+    private static int unvisited(int[][] arr, int cx, int cy, int cw, int ch, int[] options) {
+        int n = 0;
+        if (cx > 0 && arr[2 * cx - 2][2 * cy] == WALL) {
+            options[n++] = (cx - 1) * ch + cy;
+        }
+        if (cx < cw - 1 && arr[2 * cx + 2][2 * cy] == WALL) {
+            options[n++] = (cx + 1) * ch + cy;
+        }
+        if (cy > 0 && arr[2 * cx][2 * cy - 2] == WALL) {
+            options[n++] = cx * ch + cy - 1;
+        }
+        if (cy < ch - 1 && arr[2 * cx][2 * cy + 2] == WALL) {
+            options[n++] = cx * ch + cy + 1;
+        }
+        return n;
+    }
+
+    /**
+     * Puts the maze cells around {@code (cx,cy)} that are already carved into {@code options}, returns how many.
+     */
+    private static int carved(int[][] arr, int cx, int cy, int cw, int ch, int[] options) {
+        int n = 0;
+        if (cx > 0 && arr[2 * cx - 2][2 * cy] == FLOOR) {
+            options[n++] = (cx - 1) * ch + cy;
+        }
+        if (cx < cw - 1 && arr[2 * cx + 2][2 * cy] == FLOOR) {
+            options[n++] = (cx + 1) * ch + cy;
+        }
+        if (cy > 0 && arr[2 * cx][2 * cy - 2] == FLOOR) {
+            options[n++] = cx * ch + cy - 1;
+        }
+        if (cy < ch - 1 && arr[2 * cx][2 * cy + 2] == FLOOR) {
+            options[n++] = cx * ch + cy + 1;
+        }
+        return n;
+    }
+
+    /**
+     * Adds the neighbours of maze cell {@code (cx,cy)} that were never seen to the frontier, returns its new size.
+     */
+    private static int addFrontier(int cx, int cy, int cw, int ch, boolean[] seen, int[] frontier, int size) {
+        int[] candidates = {cx > 0 ? (cx - 1) * ch + cy : -1, cx < cw - 1 ? (cx + 1) * ch + cy : -1,
+                cy > 0 ? cx * ch + cy - 1 : -1, cy < ch - 1 ? cx * ch + cy + 1 : -1};
+        for (int c : candidates) {
+            if (c >= 0 && !seen[c]) {
+                seen[c] = true;
+                frontier[size++] = c;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Carves maze cell {@code (bx,by)} and the wall between it and the adjacent cell {@code (ax,ay)}.
+     */
+    private static void carve(int[][] arr, int ax, int ay, int bx, int by) {
+        arr[ax + bx][ay + by] = FLOOR; //the pixel between 2a and 2b
+        arr[2 * bx][2 * by] = FLOOR;
+    }
+
+    private static boolean overlaps(int[] placed, int count, int x0, int y0, int x1, int y1) {
+        for (int i = 0; i < count; i++) {
+            int k = 4 * i;
+            //rooms must be at least 1 wall pixel apart
+            if (x0 <= placed[k + 2] + 1 && placed[k] <= x1 + 1 && y0 <= placed[k + 3] + 1 && placed[k + 1] <= y1 + 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void corridor(int[][] arr, int ax, int ay, int bx, int by, boolean horizontalFirst) {
+        int cx = horizontalFirst ? bx : ax, cy = horizontalFirst ? ay : by; //the corner
+        for (int x = Math.min(ax, bx); x <= Math.max(ax, bx); x++) {
+            arr[x][cy] = FLOOR;
+        }
+        Arrays.fill(arr[cx], Math.min(ay, by), Math.max(ay, by) + 1, FLOOR);
+    }
+
+    /// /////////////////// Private Classes ///////////////////////
+
+    /**
+     * Formats rows of values into a reused byte buffer, one row at a time.
+     */
+    private static final class RowWriter {
+        private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+        private final OutputStream out;
+        private final int width;
+        private byte[] buf;
+        private int len;
+
+        RowWriter(OutputStream out, int width) {
+            this.out = out;
+            this.width = width;
+            this.buf = new byte[2 * width + 16];
+        }
+
+        void header(int height) throws IOException {
+            out.write((width + " " + height).getBytes(StandardCharsets.US_ASCII));
+            out.write(NEWLINE);
+        }
+
+        void value(int v) {
+            if (buf.length - len < 12) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            if (len > 0) {
+                buf[len++] = ' ';
+            }
+            if (v >= 0 && v < 10) {
+                buf[len++] = (byte) ('0' + v);
+                return;
+            }
+            byte[] digits = Integer.toString(v).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(digits, 0, buf, len, digits.length);
+            len += digits.length;
+        }
+
+        void endRow() throws IOException {
+            out.write(buf, 0, len);
+            out.write(NEWLINE);
+            len = 0;
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
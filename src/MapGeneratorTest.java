@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapGeneratorTest {
+
+    @Test
+    void sameSeedSameMap() {
+        assertEquals(MapGenerator.obstacles(300, 300, 0.3, 1), MapGenerator.obstacles(300, 300, 0.3, 1));
+        assertNotEquals(MapGenerator.obstacles(300, 300, 0.3, 1), MapGenerator.obstacles(300, 300, 0.3, 2));
+        assertEquals(MapGenerator.backtrackerMaze(101, 51, 5), MapGenerator.backtrackerMaze(101, 51, 5));
+        assertEquals(MapGenerator.primMaze(101, 51, 5), MapGenerator.primMaze(101, 51, 5));
+        assertEquals(MapGenerator.caves(300, 300, 0.45, 4, 5), MapGenerator.caves(300, 300, 0.45, 4, 5));
+        assertEquals(MapGenerator.rooms(200, 100, 15, 5), MapGenerator.rooms(200, 100, 15, 5));
+    }
+
+    @Test
+    void obstacleDensity() {
+        Map m = MapGenerator.obstacles(500, 400, 0.25, 9);
+
+        double walls = count(m, MapGenerator.WALL) / (500.0 * 400);
+        assertEquals(0.25, walls, 0.01);
+        assertEquals(0, count(MapGenerator.obstacles(20, 20, 0, 9), MapGenerator.WALL));
+        assertEquals(400, count(MapGenerator.obstacles(20, 20, 1, 9), MapGenerator.WALL));
+        assertThrows(IllegalArgumentException.class, () -> MapGenerator.obstacles(20, 20, 1.5, 9));
+    }
+
+    @Test
+    void mazesArePerfect() {
+        for (Map m : new Map[]{MapGenerator.backtrackerMaze(61, 41, 3), MapGenerator.primMaze(61, 41, 3)}) {
+            int cells = 31 * 21;
+            int floor = count(m, MapGenerator.FLOOR);
+
+            assertEquals(2 * cells - 1, floor); //every cell, plus one wall per edge of a spanning tree
+            assertEquals(floor, m.fill(new Index2D(0, 0), 2, false)); //all connected
+        }
+    }
+
+    @Test
+    void cavesAndRoomsAreMostlyConnected() {
+        Map caves = MapGenerator.caves(200, 200, 0.45, 4, 11);
+        int floor = count(caves, MapGenerator.FLOOR);
+        assertTrue(floor > 200 * 200 / 4, "floor: " + floor);
+
+        Map rooms = MapGenerator.rooms(200, 120, 12, 11);
+        Pixel2D start = firstFloor(rooms);
+        assertEquals(count(rooms, MapGenerator.FLOOR), rooms.fill(start, 2, false)); //corridors join every room
+    }
+
+    @Test
+    void writeRoundTripsThroughLoadMap(@TempDir File dir) throws IOException {
+        Map m = MapGenerator.caves(57, 33, 0.45, 3, 2);
+        m.setPixel(3, 4, -12);
+        m.setPixel(5, 6, 345);
+        File f = new File(dir, "caves.txt");
+        try (OutputStream out = new FileOutputStream(f)) {
+            MapGenerator.write(m, out);
+        }
+
+        assertEquals(m, Ex2_GUI.loadMap(f.getPath()));
+    }
+
+    @Test
+    void streamedObstaclesMatchTheMap() throws IOException {
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream(), written = new ByteArrayOutputStream();
+
+        MapGenerator.writeObstacles(streamed, 130, 70, 0.4, 77);
+        MapGenerator.write(MapGenerator.obstacles(130, 70, 0.4, 77), written);
+
+        assertArrayEquals(written.toByteArray(), streamed.toByteArray());
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static int count(Map2D m, int v) {
+        int n = 0;
+        for (int x = 0; x < m.getWidth(); x++) {
+            for (int y = 0; y < m.getHeight(); y++) {
+                if (m.getPixel(x, y) == v) {
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static Pixel2D firstFloor(Map2D m) {
+        for (int x = 0; x < m.getWidth(); x++) {
+            for (int y = 0; y < m.getHeight(); y++) {
+                if (m.getPixel(x, y) == MapGenerator.FLOOR) {
+                    return new Index2D(x, y);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,304 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A level-of-detail tile pyramid for viewing huge maps.
+ * Level 0 is the map itself, and every level above it is half the size of the one below (rounded up), where each
+ * pixel is the most common value of a 2x2 block below it ({@link MapRescaler.Mode#MODE}). So a pixel of level
+ * {@code k} covers the map pixels {@code [x*2^k, (x+1)*2^k) * [y*2^k, (y+1)*2^k)}. The top level fits in one tile.
+ * <p>
+ * Each level is cut into {@link #TILE}x{@link #TILE} tiles, which are rendered on demand with {@link MapRenderer},
+ * kept in a small in-memory LRU cache and (optionally) cached on disk as {@code <dir>/L<level>/<tx>_<ty>.png}.
+ * The cache directory remembers the size and a hash of the map it was built from, and is cleared if they don't match.
+ * Levels are only downsampled when a tile that is not on disk needs them.
+ *
+ * @author Joshua Hall
+ */
+public class MapPyramid {
+    /**
+     * The width and height of a tile, in pixels of its level.
+     */
+    public static final int TILE = 256;
+    private static final int MEMORY_TILES = 256; //tiles kept in memory (64MB)
+    private static final String SIGNATURE = "pyramid.txt";
+
+    private final int width, height, levels;
+    private final int[][][] data; //data[k] is level k, computed lazily
+    private File cacheDir; //null if there is no disk cache
+    private final MapRenderer renderer;
+    private final LinkedHashMap<Long, BufferedImage> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MEMORY_TILES;
+        }
+    };
+
+    /**
+     * Creates a pyramid with the {@link Ex2_GUI} colours and no disk cache.
+     *
+     * @param map the map (non-null, not copied: later changes to it are not seen by tiles that were already rendered)
+     */
+    public MapPyramid(Map2D map) {
+        this(map, new MapRenderer());
+    }
+
+    /**
+     * Creates a pyramid with no disk cache.
+     *
+     * @param map      the map (non-null, not copied: later changes to it are not seen by tiles that were already rendered)
+     * @param renderer the colours of the tiles (non-null)
+     */
+    public MapPyramid(Map2D map, MapRenderer renderer) {
+        if (map == null || renderer == null) {
+            throw new NullPointerException("null map/renderer");
+        }
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.renderer = renderer;
+
+        int n = 1;
+        while (levelSize(width, n - 1) > TILE || levelSize(height, n - 1) > TILE) {
+            n++;
+        }
+        this.levels = n;
+        this.data = new int[n][][];
+        this.data[0] = map instanceof Map ? ((Map) map).raw() : map.getMap();
+    }
+
+    /**
+     * Creates a pyramid that caches its tiles on disk.
+     *
+     * @param map      the map (non-null, not copied: later changes to it are not seen by tiles that were already rendered)
+     * @param cacheDir the directory to cache tiles in (non-null, created if needed).
+     *                 Use a separate directory for every renderer palette.
+     * @param renderer the colours of the tiles (non-null)
+     * @throws IOException if the cache directory could not be set up
+     */
+    public MapPyramid(Map2D map, File cacheDir, MapRenderer renderer) throws IOException {
+        this(map, renderer);
+        if (cacheDir == null) {
+            throw new NullPointerException("null cacheDir");
+        }
+        this.cacheDir = cacheDir;
+        openCache();
+    }
+
+    /**
+     * @return the number of levels (at least 1)
+     */
+    public int levels() {
+        return levels;
+    }
+
+    /**
+     * @param level a level
+     * @return the width of the level, {@code ceil(width / 2^level)}
+     */
+    public int levelWidth(int level) {
+        checkLevel(level);
+        return levelSize(width, level);
+    }
+
+    /**
+     * @param level a level
+     * @return the height of the level, {@code ceil(height / 2^level)}
+     */
+    public int levelHeight(int level) {
+        checkLevel(level);
+        return levelSize(height, level);
+    }
+
+    /**
+     * Returns the pixels of a level, downsampling the levels below it if needed.
+     *
+     * @param level a level
+     * @return a map of the level (shares its data with the pyramid, do not change it)
+     */
+    public Map level(int level) {
+        checkLevel(level);
+        return Map.wrap(levelData(level));
+    }
+
+    /**
+     * Returns the coarsest level that still has at least one level pixel per screen pixel at a zoom.
+     *
+     * @param mapPixelsPerScreenPixel how many map pixels one screen pixel covers
+     * @return the level to draw at this zoom
+     */
+    public int levelFor(double mapPixelsPerScreenPixel) {
+        int k = 0;
+        while (k + 1 < levels && (1L << (k + 1)) <= mapPixelsPerScreenPixel) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the tiles of a level that overlap a rectangle of map coordinates.
+     *
+     * @param level a level
+     * @param x0    the left of the rectangle (in map pixels)
+     * @param y0    the bottom of the rectangle
+     * @param x1    the right of the rectangle
+     * @param y1    the top of the rectangle
+     * @return the {@code {tx, ty}} of every visible tile
+     */
+    public List<int[]> visibleTiles(int level, double x0, double y0, double x1, double y1) {
+        checkLevel(level);
+        double span = (double) TILE * (1L << level); //map pixels per tile
+        int tilesX = tiles(levelWidth(level)), tilesY = tiles(levelHeight(level));
+        int tx0 = (int) Math.max(0, Math.floor(x0 / span)), tx1 = (int) Math.min(tilesX - 1, Math.floor(x1 / span));
+        int ty0 = (int) Math.max(0, Math.floor(y0 / span)), ty1 = (int) Math.min(tilesY - 1, Math.floor(y1 / span));
+
+        List<int[]> visible = new ArrayList<>();
+        for (int tx = tx0; tx <= tx1; tx++) {
+            for (int ty = ty0; ty <= ty1; ty++) {
+                visible.add(new int[]{tx, ty});
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Returns a tile image, from memory, the disk cache or by rendering it (and writing it to the disk cache).
+     * Image row 0 is the top of the tile, as with {@link MapRenderer}.
+     *
+     * @param level a level
+     * @param tx    the tile column
+     * @param ty    the tile row
+     * @return an image of up to {@link #TILE}x{@link #TILE} pixels (smaller at the right and top edges)
+     */
+    public BufferedImage tile(int level, int tx, int ty) {
+        checkLevel(level);
+        int lw = levelWidth(level), lh = levelHeight(level);
+        if (tx < 0 || ty < 0 || tx >= tiles(lw) || ty >= tiles(lh)) {
+            throw new IndexOutOfBoundsException("tx/ty out of bounds");
+        }
+
+        Long key = ((long) level << 48) | ((long) tx << 24) | ty;
+        synchronized (memory) {
+            BufferedImage hit = memory.get(key);
+            if (hit != null) {
+                return hit;
+            }
+        }
+
+        BufferedImage image = null;
+        File file = tileFile(level, tx, ty);
+        try {
+            if (file != null && file.isFile()) {
+                image = ImageIO.read(file);
+            }
+            if (image == null) {
+                int x = tx * TILE, y = ty * TILE;
+                image = renderer.render(level(level).window(x, y, Math.min(TILE, lw - x), Math.min(TILE, lh - y)));
+                if (file != null) {
+                    file.getParentFile().mkdirs();
+                    ImageIO.write(image, "png", file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        synchronized (memory) {
+            memory.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Renders every tile of every level (in parallel), so later views only read the disk cache.
+     */
+    public void precompute() {
+        for (int k = levels - 1; k >= 0; k--) {
+            int level = k, tilesX = tiles(levelWidth(k)), tilesY = tiles(levelHeight(k));
+            levelData(level);
+            IntStream.range(0, tilesX * tilesY).parallel().forEach(t -> {
+                File file = tileFile(level, t % tilesX, t / tilesX);
+                if (file == null || !file.isFile()) {
+                    tile(level, t % tilesX, t / tilesX);
+                }
+            });
+        }
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static int levelSize(int size, int level) {
+        return (int) ((size + (1L << level) - 1) >> level);
+    }
+
+    private static int tiles(int size) {
+        return (size + TILE - 1) / TILE;
+    }
+
+    private void checkLevel(int level) {
+        if (level < 0 || level >= levels) {
+            throw new IndexOutOfBoundsException("level out of bounds");
+        }
+    }
+
+    /**
+     * Returns level {@code k}, downsampling it from level {@code k-1} (2x2 blocks, rounded up) on first use.
+     */
+    private synchronized int[][] levelData(int k) {
+        if (data[k] == null) {
+            int[][] below = levelData(k - 1);
+            int w = levelSize(width, k - 1), h = levelSize(height, k - 1);
+            data[k] = MapRescaler.rescale(below, w, h, 0.5, 0.5, levelSize(width, k), levelSize(height, k),
+                    MapRescaler.Mode.MODE);
+        }
+        return data[k];
+    }
+
+    private File tileFile(int level, int tx, int ty) {
+        return cacheDir == null ? null : new File(new File(cacheDir, "L" + level), tx + "_" + ty + ".png");
+    }
+
+    /**
+     * Checks the signature of the cache directory, clearing it if it belongs to another map.
+     */
+    private void openCache() throws IOException {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IOException("cannot create " + cacheDir);
+        }
+
+        String signature = width + " " + height + " " + TILE + " " + Long.toHexString(hash());
+        File sig = new File(cacheDir, SIGNATURE);
+        if (sig.isFile() && Files.readString(sig.toPath(), StandardCharsets.UTF_8).trim().equals(signature)) {
+            return;
+        }
+
+        File[] dirs = cacheDir.listFiles((dir, name) -> name.matches("L\\d+"));
+        for (File dir : dirs == null ? new File[0] : dirs) {
+            File[] files = dir.listFiles();
+            for (File f : files == null ? new File[0] : files) {
+                Files.delete(f.toPath());
+            }
+        }
+        try (PrintWriter out = new PrintWriter(sig, StandardCharsets.UTF_8)) {
+            out.println(signature);
+        }
+    }
+
+    private long hash() {
+        long h = 1125899906842597L;
+        for (int[] col : data[0]) {
+            for (int v : col) {
+                h = 31 * h + v;
+            }
+        }
+        return h;
+    }
+}
@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapPyramidTest {
+
+    @Test
+    void levelsHalveRoundingUp() {
+        MapPyramid p = new MapPyramid(new Map(1000, 300, 0));
+
+        assertEquals(3, p.levels());
+        assertEquals(500, p.levelWidth(1));
+        assertEquals(150, p.levelHeight(1));
+        assertEquals(250, p.levelWidth(2));
+        assertEquals(75, p.levelHeight(2));
+        assertEquals(1, new MapPyramid(new Map(5)).levels());
+
+        MapPyramid odd = new MapPyramid(new Map(513, 1, 0));
+        assertEquals(257, odd.levelWidth(1));
+        assertEquals(129, odd.levelWidth(2));
+    }
+
+    @Test
+    void levelsUseTheMajorityOfEachBlock() {
+        Map m = new Map(600, 3, 0);
+        m.setPixel(0, 0, 1);
+        m.setPixel(1, 0, 1);
+        m.setPixel(0, 1, 1); //3 of the 4 pixels of block (0,0) are 1
+        m.setPixel(2, 0, 1); //1 of the 4 pixels of block (1,0)
+        m.setPixel(598, 2, 7);
+        m.setPixel(599, 2, 7); //the top row of blocks is only 1 pixel high
+
+        Map level1 = new MapPyramid(m).level(1);
+
+        assertEquals(300, level1.getWidth());
+        assertEquals(2, level1.getHeight());
+        assertEquals(1, level1.getPixel(0, 0));
+        assertEquals(0, level1.getPixel(1, 0));
+        assertEquals(7, level1.getPixel(299, 1));
+    }
+
+    @Test
+    void levelForPicksAboutOnePixelPerScreenPixel() {
+        MapPyramid p = new MapPyramid(new Map(4000, 4000, 0)); //5 levels
+
+        assertEquals(0, p.levelFor(0.25));
+        assertEquals(0, p.levelFor(1.9));
+        assertEquals(1, p.levelFor(2));
+        assertEquals(3, p.levelFor(10));
+        assertEquals(4, p.levelFor(1000));
+    }
+
+    @Test
+    void visibleTilesAreClippedToTheLevel() {
+        MapPyramid p = new MapPyramid(new Map(1000, 600, 0));
+
+        assertEquals(12, p.visibleTiles(0, -100, -100, 5000, 5000).size()); //4x3 tiles
+        List<int[]> one = p.visibleTiles(0, 300, 10, 400, 200);
+        assertEquals(1, one.size());
+        assertArrayEquals(new int[]{1, 0}, one.get(0));
+        assertEquals(2, p.visibleTiles(1, 0, 0, 600, 100).size()); //level 1 tiles are 512 map pixels wide
+    }
+
+    @Test
+    void tilesAreRenderedFromTheirLevel() {
+        Map m = new Map(300, 260, 0);
+        m.setPixel(299, 259, 1);
+        MapPyramid p = new MapPyramid(m);
+
+        BufferedImage corner = p.tile(0, 1, 1);
+        assertEquals(44, corner.getWidth());
+        assertEquals(4, corner.getHeight());
+        assertEquals(Ex2_GUI.colorOf(1).getRGB(), corner.getRGB(43, 0));
+        assertSame(corner, p.tile(0, 1, 1));
+        assertEquals(150, p.tile(1, 0, 0).getWidth());
+        assertThrows(IndexOutOfBoundsException.class, () -> p.tile(0, 2, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> p.tile(2, 0, 0));
+    }
+
+    @Test
+    void diskCacheIsReusedAndInvalidated(@TempDir File dir) throws IOException {
+        Map m = new Map(600, 300, 0);
+        MapPyramid p = new MapPyramid(m, dir, new MapRenderer());
+        p.precompute();
+
+        File tile = new File(dir, "L0/2_1.png");
+        assertTrue(tile.isFile());
+        assertTrue(new File(dir, "L1/0_0.png").isFile());
+        long written = tile.lastModified();
+
+        new MapPyramid(m, dir, new MapRenderer()).tile(0, 2, 1); //same map, read from disk
+        assertEquals(written, tile.lastModified());
+
+        m.setPixel(0, 0, 1);
+        new MapPyramid(m, dir, new MapRenderer());
+        assertFalse(tile.exists());
+    }
+}
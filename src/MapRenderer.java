@@ -0,0 +1,119 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Renders a {@link Map2D} into a {@link BufferedImage} with one image pixel per map pixel, by writing ARGB values
+ * straight into the image's {@code int[]} raster through a palette lookup table.
+ * Works without a display (e.g. with {@code java.awt.headless=true}), the result can then be drawn with
+ * a single blit (see {@link Ex2_GUI#drawMap(Map2D)}) or saved to a file.
+ * <p>
+ * Image row 0 is the top of the map ({@code y = height-1}), so the image looks the same as the {@link StdDraw} canvas.
+ *
+ * @author Joshua Hall
+ */
+public class MapRenderer {
+    private final int[] palette;
+    private final int outside;
+
+    /**
+     * Creates a renderer with the same colours as {@link Ex2_GUI}: 0 to 9 get their own colour,
+     * every other value is light gray.
+     */
+    public MapRenderer() {
+        int[] lut = new int[10];
+        for (int v = 0; v < lut.length; v++) {
+            lut[v] = Ex2_GUI.colorOf(v).getRGB();
+        }
+        this.palette = lut;
+        this.outside = Ex2_GUI.colorOf(-1).getRGB();
+    }
+
+    /**
+     * Creates a renderer with a custom palette.
+     *
+     * @param palette ARGB colour of each value {@code 0..palette.length-1} (copied)
+     * @param outside ARGB colour of every other value
+     */
+    public MapRenderer(int[] palette, int outside) {
+        this.palette = palette.clone();
+        this.outside = outside;
+    }
+
+    /**
+     * Renders a map into a new image.
+     *
+     * @param map the map to render (non-null)
+     * @return a {@code width*height} image of type {@link BufferedImage#TYPE_INT_ARGB}
+     */
+    public BufferedImage render(Map2D map) {
+        BufferedImage image = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        renderRegion(map, image, 0, 0, map.getWidth(), map.getHeight());
+        return image;
+    }
+
+    /**
+     * Renders a map into an existing image, e.g. to reuse it between frames.
+     *
+     * @param map   the map to render (non-null)
+     * @param image an image of type {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_RGB}
+     *              with the same dimensions as the map
+     */
+    public void render(Map2D map, BufferedImage image) {
+        renderRegion(map, image, 0, 0, map.getWidth(), map.getHeight());
+    }
+
+    /**
+     * Re-renders only the dirty tiles of a map (see {@link Map#setDirtyTracking(boolean)}) into an image that already
+     * holds the rest of it. Does not clear the dirty tiles.
+     *
+     * @param map   the map to render (non-null, with dirty tracking on)
+     * @param image an image previously rendered from the same map
+     */
+    public void renderDirty(Map map, BufferedImage image) {
+        DirtyTiles dirty = map.dirtyTiles();
+        if (dirty == null) {
+            render(map, image);
+            return;
+        }
+
+        for (int t = dirty.nextDirty(0); t >= 0; t = dirty.nextDirty(t + 1)) {
+            int x0 = (t % dirty.tilesX()) * DirtyTiles.TILE;
+            int y0 = (t / dirty.tilesX()) * DirtyTiles.TILE;
+            renderRegion(map, image, x0, y0,
+                    Math.min(x0 + DirtyTiles.TILE, map.getWidth()), Math.min(y0 + DirtyTiles.TILE, map.getHeight()));
+        }
+    }
+
+    /**
+     * Returns the ARGB colour used for a value.
+     *
+     * @param v a pixel value
+     * @return its colour
+     */
+    public int argbOf(int v) {
+        return v >= 0 && v < palette.length ? palette[v] : outside;
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    /**
+     * Renders the pixels {@code [x0,x1)*[y0,y1)} of the map.
+     */
+    private void renderRegion(Map2D map, BufferedImage image, int x0, int y0, int x1, int y1) {
+        int w = map.getWidth(), h = map.getHeight();
+        if (image.getWidth() != w || image.getHeight() != h) {
+            throw new IllegalArgumentException("image is " + image.getWidth() + "x" + image.getHeight() + ", map is " + w + "x" + h);
+        }
+
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[][] raw = map instanceof Map ? ((Map) map).raw() : null;
+        int[] lut = palette;
+        for (int x = x0; x < x1; x++) {
+            int[] col = raw != null ? raw[x] : null;
+            for (int y = y0; y < y1; y++) {
+                int v = col != null ? col[y] : map.getPixel(x, y);
+                pixels[(h - 1 - y) * w + x] = v >= 0 && v < lut.length ? lut[v] : outside;
+            }
+        }
+    }
+}
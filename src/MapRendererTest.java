@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapRendererTest {
+
+    @Test
+    void usesGuiColoursWithYAxisUp() {
+        Map m = new Map(new int[][]{
+                {0, 1, 2},
+                {3, 42, -1}
+        });
+
+        BufferedImage img = new MapRenderer().render(m);
+
+        assertEquals(2, img.getWidth());
+        assertEquals(3, img.getHeight());
+        assertEquals(Color.WHITE.getRGB(), img.getRGB(0, 2)); //map (0,0) is the bottom left corner
+        assertEquals(Color.BLUE.getRGB(), img.getRGB(0, 0));
+        assertEquals(Color.RED.getRGB(), img.getRGB(1, 2));
+        assertEquals(Color.LIGHT_GRAY.getRGB(), img.getRGB(1, 1));
+        assertEquals(Color.LIGHT_GRAY.getRGB(), img.getRGB(1, 0));
+    }
+
+    @Test
+    void rendersAnyMap2D() {
+        Map m = new Map(40, 30, 0);
+        m.drawCircle(new Index2D(20, 15), 6, 4);
+        MapRenderer r = new MapRenderer();
+
+        BufferedImage direct = r.render(m);
+        BufferedImage viaView = r.render(m.view());
+
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 30; y++) {
+                assertEquals(direct.getRGB(x, y), viaView.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void renderDirtyOnlyUpdatesDirtyTiles() {
+        Map m = new Map(64, 64, 0);
+        m.setDirtyTracking(true);
+        MapRenderer r = new MapRenderer();
+        BufferedImage img = r.render(m);
+        m.dirtyTiles().clear();
+
+        m.setPixel(1, 1, 3);
+        r.renderDirty(m, img);
+
+        assertEquals(Color.RED.getRGB(), img.getRGB(1, 62));
+    }
+
+    @Test
+    void customPalette() {
+        MapRenderer r = new MapRenderer(new int[]{0xff000000, 0xffffffff}, 0xff00ff00);
+
+        assertEquals(0xffffffff, r.argbOf(1));
+        assertEquals(0xff00ff00, r.argbOf(2));
+        assertEquals(0xff00ff00, r.argbOf(-1));
+    }
+}
@@ -0,0 +1,265 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A parallel rescaling engine for maps.
+ * The output is split into tiles which are computed on the common fork-join pool, and the source index tables for
+ * x and y are computed once up front (so there is no per-pixel division or bounds check).
+ * <p>
+ * Output pixel {@code (i,j)} covers the source area {@code [i/sx, (i+1)/sx) * [j/sy, (j+1)/sy)}, which gives the
+ * different {@link Mode}s their footprint.
+ *
+ * @author Joshua Hall
+ */
+public final class MapRescaler {
+    private static final int TILE_AREA = 1 << 14; //output pixels per fork-join leaf task
+
+    /**
+     * How an output pixel is computed from the source pixels.
+     */
+    public enum Mode {
+        /**
+         * The source pixel at {@code (int)(i/sx), (int)(j/sy)}, exactly as in {@link Map#rescale(double, double)}.
+         */
+        NEAREST,
+        /**
+         * Bilinear interpolation between the 4 source pixels around the output pixel's centre (rounded).
+         */
+        BILINEAR,
+        /**
+         * The most common value in the footprint (ties go to the smallest value), good for label maps.
+         */
+        MODE,
+        /**
+         * The mean of the source pixels in the footprint (rounded).
+         */
+        AREA_AVERAGE
+    }
+
+    private MapRescaler() {
+    }
+
+    /**
+     * Computes a rescaled copy of a map. The source is not changed.
+     *
+     * @param src  the map to rescale (non-null)
+     * @param sx   x direction scale factor (&gt; 0)
+     * @param sy   y direction scale factor (&gt; 0)
+     * @param mode how to compute each output pixel (non-null)
+     * @return a new {@link Map} of size {@code (int)(w*sx)} * {@code (int)(h*sy)}
+     */
+    public static Map rescale(Map2D src, double sx, double sy, Mode mode) {
+        if (src == null || mode == null) {
+            throw new NullPointerException("null map/mode");
+        }
+        int[][] data = src instanceof Map ? ((Map) src).raw() : src.getMap();
+        return Map.wrap(rescale(data, src.getWidth(), src.getHeight(), sx, sy, mode));
+    }
+
+    /**
+     * Computes a rescaled copy of the raw {@code [x][y]} array of a map.
+     */
+    static int[][] rescale(int[][] src, int width, int height, double sx, double sy, Mode mode) {
+        if (sx <= 0 || sy <= 0) {
+            throw new IllegalArgumentException("sx/sy must be >0. you have: sx=" + sx + ", sy=" + sy);
+        }
+
+        int newW = (int) (width * sx);
+        int newH = (int) (height * sy);
+        if (newW == 0 || newH == 0) {
+            throw new RuntimeException("size is 0");
+        }
+        return rescale(src, width, height, sx, sy, newW, newH, mode);
+    }
+
+    /**
+     * Computes a rescaled copy of the raw {@code [x][y]} array of a map with an explicit output size, e.g. to round
+     * it up instead of down (footprints past the edge of the source are clipped to it).
+     */
+    static int[][] rescale(int[][] src, int width, int height, double sx, double sy, int newW, int newH, Mode mode) {
+        Axis ax = new Axis(newW, width, sx, mode);
+        Axis ay = new Axis(newH, height, sy, mode);
+        int[][] out = new int[newW][newH];
+        Task task = new Task(src, out, ax, ay, mode, 0, newW, 0, newH);
+        if ((long) newW * newH <= TILE_AREA) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return out;
+    }
+
+    /// /////////////////// Private Classes ///////////////////////
+
+    /**
+     * The precomputed source index table of one axis.
+     * For output index {@code i}: {@code lo[i]} is the nearest source index (or the start of the footprint),
+     * {@code hi[i]} is the end of the footprint (exclusive) or the second bilinear sample, and {@code frac[i]} is
+     * the bilinear weight of {@code hi[i]}.
+     */
+    private static final class Axis {
+        final int[] lo, hi;
+        final double[] frac;
+        final int maxSpan;
+
+        Axis(int n, int srcLen, double s, Mode mode) {
+            lo = new int[n];
+            hi = new int[n];
+            frac = mode == Mode.BILINEAR ? new double[n] : null;
+            int span = 1;
+
+            for (int i = 0; i < n; i++) {
+                lo[i] = clamp((int) (i / s), srcLen - 1); //same expression as Map.rescale
+                if (mode == Mode.BILINEAR) {
+                    double u = Math.min(Math.max((i + 0.5) / s - 0.5, 0), srcLen - 1);
+                    int f = (int) u;
+                    lo[i] = f;
+                    hi[i] = Math.min(f + 1, srcLen - 1);
+                    frac[i] = u - f;
+                } else {
+                    hi[i] = Math.min(Math.max(lo[i] + 1, (int) Math.ceil((i + 1) / s)), srcLen);
+                    span = Math.max(span, hi[i] - lo[i]);
+                }
+            }
+            maxSpan = span;
+        }
+    }
+
+    private static final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[][] src, out;
+        private final Axis ax, ay;
+        private final Mode mode;
+        private final int x0, x1, y0, y1;
+
+        Task(int[][] src, int[][] out, Axis ax, Axis ay, Mode mode, int x0, int x1, int y0, int y1) {
+            this.src = src;
+            this.out = out;
+            this.ax = ax;
+            this.ay = ay;
+            this.mode = mode;
+            this.x0 = x0;
+            this.x1 = x1;
+            this.y0 = y0;
+            this.y1 = y1;
+        }
+
+        @Override
+        protected void compute() {
+            int w = x1 - x0, h = y1 - y0;
+            if ((long) w * h > TILE_AREA && (w > 1 || h > 1)) {
+                if (w >= h) {
+                    int mid = x0 + w / 2;
+                    invokeAll(new Task(src, out, ax, ay, mode, x0, mid, y0, y1),
+                            new Task(src, out, ax, ay, mode, mid, x1, y0, y1));
+                } else {
+                    int mid = y0 + h / 2;
+                    invokeAll(new Task(src, out, ax, ay, mode, x0, x1, y0, mid),
+                            new Task(src, out, ax, ay, mode, x0, x1, mid, y1));
+                }
+                return;
+            }
+
+            switch (mode) {
+                case NEAREST:
+                    nearest();
+                    break;
+                case BILINEAR:
+                    bilinear();
+                    break;
+                case MODE:
+                    majority();
+                    break;
+                default:
+                    areaAverage();
+            }
+        }
+
+        private void nearest() {
+            for (int i = x0; i < x1; i++) {
+                int[] col = src[ax.lo[i]], dst = out[i];
+                for (int j = y0; j < y1; j++) {
+                    dst[j] = col[ay.lo[j]];
+                }
+            }
+        }
+
+        private void bilinear() {
+            for (int i = x0; i < x1; i++) {
+                int[] c0 = src[ax.lo[i]], c1 = src[ax.hi[i]], dst = out[i];
+                double fx = ax.frac[i];
+                for (int j = y0; j < y1; j++) {
+                    int ja = ay.lo[j], jb = ay.hi[j];
+                    double fy = ay.frac[j];
+                    double a = c0[ja] + (c0[jb] - c0[ja]) * fy;
+                    double b = c1[ja] + (c1[jb] - c1[ja]) * fy;
+                    dst[j] = (int) Math.round(a + (b - a) * fx);
+                }
+            }
+        }
+
+        private void areaAverage() {
+            for (int i = x0; i < x1; i++) {
+                int[] dst = out[i];
+                for (int j = y0; j < y1; j++) {
+                    long sum = 0;
+                    for (int x = ax.lo[i]; x < ax.hi[i]; x++) {
+                        int[] col = src[x];
+                        for (int y = ay.lo[j]; y < ay.hi[j]; y++) {
+                            sum += col[y];
+                        }
+                    }
+                    long n = (long) (ax.hi[i] - ax.lo[i]) * (ay.hi[j] - ay.lo[j]);
+                    dst[j] = (int) Math.round((double) sum / n);
+                }
+            }
+        }
+
+        private void majority() {
+            int[] values = new int[ax.maxSpan * ay.maxSpan];
+            for (int i = x0; i < x1; i++) {
+                int[] dst = out[i];
+                for (int j = y0; j < y1; j++) {
+                    int n = 0;
+                    for (int x = ax.lo[i]; x < ax.hi[i]; x++) {
+                        int[] col = src[x];
+                        for (int y = ay.lo[j]; y < ay.hi[j]; y++) {
+                            values[n++] = col[y];
+                        }
+                    }
+                    dst[j] = mostCommon(values, n);
+                }
+            }
+        }
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    /**
+     * Returns the most common of the first {@code n} values (the smallest one in case of a tie). Reorders them.
+     */
+    static int mostCommon(int[] values, int n) {
+        if (n == 1) {
+            return values[0];
+        }
+
+        Arrays.sort(values, 0, n);
+        int best = values[0], bestRun = 0, run = 0;
+        for (int k = 0; k < n; k++) {
+            run = (k > 0 && values[k] == values[k - 1]) ? run + 1 : 1;
+            if (run > bestRun) {
+                bestRun = run;
+                best = values[k];
+            }
+        }
+        return best;
+    }
+
+    private static int clamp(int val, int max) {
+        if (val < 0) {
+            return 0;
+        }
+        return Math.min(val, max);
+    }
+}
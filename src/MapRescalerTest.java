@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapRescalerTest {
+
+    //reference: the original single threaded nearest neighbour rescale
+    private static int[][] nearestReference(Map m, double sx, double sy) {
+        int w = m.getWidth(), h = m.getHeight();
+        int newW = (int) (w * sx), newH = (int) (h * sy);
+        int[][] out = new int[newW][newH];
+        for (int i = 0; i < newW; i++) {
+            for (int j = 0; j < newH; j++) {
+                int x = Math.min(Math.max((int) (i / sx), 0), w - 1);
+                int y = Math.min(Math.max((int) (j / sy), 0), h - 1);
+                out[i][j] = m.getPixel(x, y);
+            }
+        }
+        return out;
+    }
+
+    private static Map random(int w, int h, long seed) {
+        Random rnd = new Random(seed);
+        int[][] arr = new int[w][h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                arr[x][y] = rnd.nextInt(10);
+            }
+        }
+        return new Map(arr);
+    }
+
+
+    //nearest
+    @Test
+    void nearestMatchesOriginalRescale() {
+        Map m = random(37, 23, 1);
+        double[][] scales = {{2, 2}, {0.5, 0.5}, {1.3, 0.7}, {0.31, 3.9}, {1, 1}};
+
+        for (double[] s : scales) {
+            Map scaled = MapRescaler.rescale(m, s[0], s[1], MapRescaler.Mode.NEAREST);
+            assertArrayEquals(nearestReference(m, s[0], s[1]), scaled.getMap());
+        }
+    }
+
+    @Test
+    void nearestMatchesOriginalRescaleInParallel() {
+        Map m = random(700, 500, 2);
+
+        Map scaled = MapRescaler.rescale(m, 0.77, 1.1, MapRescaler.Mode.NEAREST);
+
+        assertArrayEquals(nearestReference(m, 0.77, 1.1), scaled.getMap());
+    }
+
+    @Test
+    void invalidScaleThrows() {
+        Map m = new Map(4);
+        assertThrows(IllegalArgumentException.class, () -> MapRescaler.rescale(m, 0, 1, MapRescaler.Mode.MODE));
+        assertThrows(RuntimeException.class, () -> MapRescaler.rescale(m, 0.1, 1, MapRescaler.Mode.MODE));
+    }
+
+
+    //other modes
+    @Test
+    void modePicksMajorityLabel() {
+        Map m = new Map(new int[][]{
+                {1, 1, 5, 6},
+                {1, 2, 7, 7}
+        });
+
+        Map scaled = MapRescaler.rescale(m, 0.5, 0.5, MapRescaler.Mode.MODE);
+
+        assertEquals(1, scaled.getWidth());
+        assertEquals(2, scaled.getHeight());
+        assertEquals(1, scaled.getPixel(0, 0));
+        assertEquals(7, scaled.getPixel(0, 1));
+    }
+
+    @Test
+    void areaAverageTakesMeanOfFootprint() {
+        Map m = new Map(new int[][]{
+                {0, 4, 10, 10},
+                {2, 2, 10, 11}
+        });
+
+        Map scaled = MapRescaler.rescale(m, 0.5, 0.5, MapRescaler.Mode.AREA_AVERAGE);
+
+        assertEquals(2, scaled.getPixel(0, 0));
+        assertEquals(10, scaled.getPixel(0, 1));
+    }
+
+    @Test
+    void bilinearInterpolatesBetweenNeighbours() {
+        Map m = new Map(new int[][]{{0}, {100}});
+
+        Map scaled = MapRescaler.rescale(m, 2, 1, MapRescaler.Mode.BILINEAR);
+
+        assertEquals(4, scaled.getWidth());
+        assertEquals(0, scaled.getPixel(0, 0));
+        assertEquals(25, scaled.getPixel(1, 0));
+        assertEquals(75, scaled.getPixel(2, 0));
+        assertEquals(100, scaled.getPixel(3, 0));
+    }
+
+    @Test
+    void rescaleInPlaceWithMode() {
+        Map m = new Map(4, 4, 3);
+        m.rescale(0.5, 0.25, MapRescaler.Mode.AREA_AVERAGE);
+
+        assertEquals(2, m.getWidth());
+        assertEquals(1, m.getHeight());
+        assertEquals(3, m.getPixel(1, 0));
+    }
+}
@@ -0,0 +1,630 @@
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+
+/**
+ * The BFS based algorithms ({@code fill}, {@code shortestPath}, {@code allDistance} and {@code withinDistance})
+ * written against the {@link Map2D} interface, so they can be shared by {@link Map} and by the views/windows over it
+ * ({@link MapWindow}).
+ * <p>
+ * The searches are level-synchronous: cells are packed as {@code x*height+y} into an {@code int[]} queue, and each
+ * wavefront (the cells at one distance) is the queue slice {@code [head, levelEnd)}. This is what a
+ * {@link SearchObserver} is shown, once per wavefront, so an observer costs nothing per cell and no observer
+ * ({@code null}) costs nothing at all. The same goes for {@link SearchMetrics}: the counts are the queue indices, and
+ * the clock is only read when a sink is installed.
+ * <p>
+ * The moves come from a {@link Neighbourhood} (4-connected by default), turned into packed cell offsets once per
+ * search: a cell at least the stencil radius away from the edges reaches its neighbours with one add each, and only
+ * the border cells check bounds or wrap around ({@code cyclic}, see {@link #wrap(int, int)}) instead of paying a
+ * division per step.
+ * <p>
+ * The working memory ({@link SearchScratch}) is cached per thread and its visited set is generation-stamped, so a
+ * search only pays for the cells it reaches, not for clearing {@code width*height} flags.
+ *
+ * @author Joshua Hall
+ */
+final class MapSearch {
+    static volatile SearchMetrics metrics; //see Map#setSearchMetrics, null when disabled
+    private static final ThreadLocal<SoftReference<SearchScratch>> SCRATCH = new ThreadLocal<>(); //soft: big maps
+
+    private MapSearch() {
+    }
+
+    /**
+     * {@link #fill(Map2D, Pixel2D, int, boolean, Neighbourhood, SearchObserver)} over the 4 orthogonal neighbours.
+     */
+    static int fill(Map2D map, Pixel2D xy, int new_v, boolean cyclic, SearchObserver observer) {
+        return fill(map, xy, new_v, cyclic, Neighbourhood.FOUR, observer);
+    }
+
+    /**
+     * Flood fills the region starting from the pixel {@code xy}, see {@link Map2D#fill(Pixel2D, int, boolean)}.
+     *
+     * @param map      the map to fill (modified in place)
+     * @param xy       the starting pixel
+     * @param new_v    the fill colour
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param moves    the neighbourhood of a pixel
+     * @param observer told about every wavefront (may be {@code null})
+     * @return the number of pixels successfully filled
+     */
+    static int fill(Map2D map, Pixel2D xy, int new_v, boolean cyclic, Neighbourhood moves, SearchObserver observer) {
+        if (xy == null || !map.isInside(xy)) {
+            return 0;
+        }
+
+        int old_v = map.getPixel(xy);
+        if (old_v == new_v) {
+            return 0;
+        }
+
+        SearchMetrics metrics = MapSearch.metrics;
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        int width = map.getWidth(), height = map.getHeight();
+        if (cyclic) {
+            moves = moves.fitTo(width, height);
+        }
+        int[] dx = moves.dx, dy = moves.dy, offsets = moves.offsets(height);
+        int rx = moves.radiusX(), ry = moves.radiusY();
+        SearchScratch scratch = acquire();
+        try {
+            scratch.begin(cells(width, height));
+            int[] stamps = scratch.stamps, queue = scratch.queue;
+            int epoch = scratch.epoch;
+            int head = 0, tail = 0, distance = 0, peak = 0;
+
+            int start = xy.getX() * height + xy.getY();
+            stamps[start] = epoch;
+            queue[tail++] = start;
+
+            while (head < tail) {
+                int levelEnd = tail;
+                peak = Math.max(peak, levelEnd - head);
+                if (observer != null) {
+                    observer.wavefront(distance, queue, head, levelEnd, height);
+                }
+
+                for (; head < levelEnd; head++) {
+                    int curr = queue[head];
+                    int x = curr / height, y = curr - x * height;
+                    boolean interior = x >= rx && x < width - rx && y >= ry && y < height - ry;
+                    map.setPixel(x, y, new_v);
+
+                    for (int i = 0; i < dx.length; i++) {
+                        int newX = x + dx[i];
+                        int newY = y + dy[i];
+                        int next;
+
+                        if (interior) {
+                            next = curr + offsets[i];
+                        } else {
+                            if (cyclic) {
+                                newX = wrap(newX, width);
+                                newY = wrap(newY, height);
+                            } else if (!isInside(newX, newY, width, height)) {
+                                continue;
+                            }
+                            next = newX * height + newY;
+                        }
+
+                        if (stamps[next] != epoch && map.getPixel(newX, newY) == old_v) {
+                            if (moves.checkCorners && moves.diagonal[i]
+                                    && !cornerOpen(map, x, y, dx[i], dy[i], cyclic, moves.corners, old_v, stamps,
+                                    epoch)) {
+                                continue;
+                            }
+                            stamps[next] = epoch;
+                            queue[tail++] = next;
+                        }
+                    }
+                }
+                distance++;
+            }
+
+            if (observer != null) {
+                observer.finished(false);
+            }
+            if (metrics != null) {
+                metrics.searched(SearchMetrics.Kind.FILL, head, peak, System.nanoTime() - startTime, false);
+            }
+            return tail;
+        } finally {
+            release(scratch);
+        }
+    }
+
+    /**
+     * {@link #shortestPath(Map2D, Pixel2D, Pixel2D, int, boolean, Neighbourhood, SearchObserver)} over the 4
+     * orthogonal neighbours.
+     */
+    static Pixel2D[] shortestPath(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic,
+                                  SearchObserver observer) {
+        return shortestPath(map, p1, p2, obsColor, cyclic, Neighbourhood.FOUR, observer);
+    }
+
+    /**
+     * Computes the shortest path between two pixels, see {@link Map2D#shortestPath(Pixel2D, Pixel2D, int, boolean)}.
+     * The search stops as soon as {@code p2} is reached.
+     *
+     * @param map      the map to search
+     * @param p1       starting pixel
+     * @param p2       finishing pixel
+     * @param obsColor the color which is addressed as an obstacle.
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param moves    the neighbourhood of a pixel
+     * @param observer told about every wavefront (may be {@code null})
+     * @return an array of pixels representing the path from {@code p1} to {@code p2}, or {@code null}
+     */
+    static Pixel2D[] shortestPath(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic,
+                                  Neighbourhood moves, SearchObserver observer) {
+        SearchScratch scratch = acquire();
+        try {
+            return shortestPath(map, p1, p2, obsColor, cyclic, moves, observer, scratch);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    /**
+     * {@link #shortestPath(Map2D, Pixel2D, Pixel2D, int, boolean, SearchObserver)} with reusable working memory.
+     *
+     * @param scratch the working memory (only used by one thread at a time)
+     * @return an array of pixels representing the path from {@code p1} to {@code p2}, or {@code null}
+     */
+    static Pixel2D[] shortestPath(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic,
+                                  SearchObserver observer, SearchScratch scratch) {
+        return shortestPath(map, p1, p2, obsColor, cyclic, Neighbourhood.FOUR, observer, scratch);
+    }
+
+    /**
+     * {@link #shortestPath(Map2D, Pixel2D, Pixel2D, int, boolean, Neighbourhood, SearchObserver)} with reusable
+     * working memory.
+     *
+     * @param scratch the working memory (only used by one thread at a time)
+     * @return an array of pixels representing the path from {@code p1} to {@code p2}, or {@code null}
+     */
+    static Pixel2D[] shortestPath(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic,
+                                  Neighbourhood moves, SearchObserver observer, SearchScratch scratch) {
+        if (!canSearch(map, p1, p2, obsColor)) {
+            return null;
+        }
+        if (p1.equals(p2)) {
+            return new Pixel2D[]{p1};
+        }
+
+        int height = map.getHeight(), target = p2.getX() * height + p2.getY();
+        if (!searchPath(map, p1, p2, obsColor, cyclic, moves, observer, scratch)) {
+            return null;
+        }
+        return finalPath(scratch.prev, target, height);
+    }
+
+    /**
+     * Computes the length of the shortest path between two pixels (without building it), over the 4 orthogonal
+     * neighbours.
+     *
+     * @param scratch the working memory (only used by one thread at a time)
+     * @return the number of steps from {@code p1} to {@code p2}, or -1 if there is no path
+     */
+    static int pathLength(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic, SearchScratch scratch) {
+        if (!canSearch(map, p1, p2, obsColor)) {
+            return -1;
+        }
+        if (p1.equals(p2)) {
+            return 0;
+        }
+        if (!searchPath(map, p1, p2, obsColor, cyclic, Neighbourhood.FOUR, null, scratch)) {
+            return -1;
+        }
+
+        int steps = 0;
+        int[] prev = scratch.prev;
+        for (int cell = p2.getX() * map.getHeight() + p2.getY(); prev[cell] != -1; cell = prev[cell]) {
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * {@link #allDistance(Map2D, Pixel2D, int, boolean, Neighbourhood, SearchObserver)} over the 4 orthogonal
+     * neighbours.
+     */
+    static Map2D allDistance(Map2D map, Pixel2D start, int obsColor, boolean cyclic, SearchObserver observer) {
+        return allDistance(map, start, obsColor, cyclic, Neighbourhood.FOUR, observer);
+    }
+
+    /**
+     * Creates a distance map from a given starting point, see {@link Map2D#allDistance(Pixel2D, int, boolean)}.
+     *
+     * @param map      the map to search
+     * @param start    starting point
+     * @param obsColor the color representing obstacles
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param moves    the neighbourhood of a pixel
+     * @param observer told about every wavefront (may be {@code null})
+     * @return a new {@link Map} with values representing the distance from {@code start}
+     */
+    static Map2D allDistance(Map2D map, Pixel2D start, int obsColor, boolean cyclic, Neighbourhood moves,
+                             SearchObserver observer) {
+        int width = map.getWidth(), height = map.getHeight();
+        if (start == null || !map.isInside(start)) {
+            return new Map(width, height, -1);
+        }
+
+        int x1 = start.getX(), y1 = start.getY();
+        if (map.getPixel(x1, y1) == obsColor) {
+            return new Map(width, height, -1);
+        }
+
+        SearchMetrics metrics = MapSearch.metrics;
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        if (cyclic) {
+            moves = moves.fitTo(width, height);
+        }
+        int[] dx = moves.dx, dy = moves.dy;
+        int rx = moves.radiusX(), ry = moves.radiusY();
+        int[][] dist = new int[width][height];
+        for (int[] col : dist) {
+            Arrays.fill(col, -1);
+        }
+        dist[x1][y1] = 0;
+
+        SearchScratch scratch = acquire();
+        try {
+            scratch.begin(cells(width, height)); //only the queue is used, dist doubles as the visited set
+            int[] queue = scratch.queue;
+            int head = 0, tail = 0, distance = 0, peak = 0;
+            queue[tail++] = x1 * height + y1;
+
+            while (head < tail) {
+                int levelEnd = tail;
+                peak = Math.max(peak, levelEnd - head);
+                if (observer != null) {
+                    observer.wavefront(distance, queue, head, levelEnd, height);
+                }
+
+                for (; head < levelEnd; head++) {
+                    int x = queue[head] / height, y = queue[head] - x * height;
+                    boolean interior = x >= rx && x < width - rx && y >= ry && y < height - ry;
+
+                    for (int i = 0; i < dx.length; i++) {
+                        int newX = x + dx[i];
+                        int newY = y + dy[i];
+
+                        if (!interior) {
+                            if (cyclic) {
+                                newX = wrap(newX, width);
+                                newY = wrap(newY, height);
+                            } else if (!isInside(newX, newY, width, height)) {
+                                continue;
+                            }
+                        }
+
+                        if (dist[newX][newY] >= 0 || map.getPixel(newX, newY) == obsColor) {
+                            continue; //dist doubles as the visited set
+                        }
+                        if (moves.checkCorners && moves.diagonal[i]
+                                && !cornerOpen(map, x, y, dx[i], dy[i], cyclic, moves.corners, obsColor, null, 0)) {
+                            continue;
+                        }
+
+                        dist[newX][newY] = distance + 1;
+                        queue[tail++] = newX * height + newY;
+                    }
+                }
+                distance++;
+            }
+
+            if (observer != null) {
+                observer.finished(false);
+            }
+            if (metrics != null) {
+                metrics.searched(SearchMetrics.Kind.ALL_DISTANCE, head, peak, System.nanoTime() - startTime, false);
+            }
+            return Map.wrap(dist);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    /**
+     * Finds the pixels within {@code maxDistance} steps of {@code start}, see
+     * {@link Map#withinDistance(Pixel2D, int, boolean, int, int)}. Unlike {@code allDistance} this stops at the limits
+     * and only allocates the result, so it costs time and memory for the neighbourhood and not for the map.
+     *
+     * @param map         the map to search
+     * @param start       starting point
+     * @param obsColor    the color representing obstacles
+     * @param cyclic      {@code true} iff we want to loop around the edge
+     * @param maxDistance the largest distance to report (&gt;= 0)
+     * @param maxCells    the most pixels to report, the start included (&gt; 0)
+     * @param observer    told about every wavefront (may be {@code null})
+     * @return the reached pixels with their distances
+     */
+    static SparseDistances withinDistance(Map2D map, Pixel2D start, int obsColor, boolean cyclic, int maxDistance,
+                                          int maxCells, SearchObserver observer) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must be >=0. you have: " + maxDistance);
+        }
+        if (maxCells <= 0) {
+            throw new IllegalArgumentException("maxCells must be >0. you have: " + maxCells);
+        }
+        int width = map.getWidth(), height = map.getHeight();
+        if (start == null || !map.isInside(start) || map.getPixel(start) == obsColor) {
+            return new SparseDistances(new int[0], new int[0], height, false);
+        }
+
+        SearchMetrics metrics = MapSearch.metrics;
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        Neighbourhood moves = Neighbourhood.FOUR;
+        int[] dx = moves.dx, dy = moves.dy, offsets = moves.offsets(height);
+        SearchScratch scratch = acquire();
+        try {
+            scratch.begin(cells(width, height));
+            //dist[i] is the distance of queue[i]
+            int[] stamps = scratch.stamps, dist = scratch.prev, queue = scratch.queue;
+            int epoch = scratch.epoch;
+            int head = 0, tail = 0, distance = 0, peak = 0, levelEnd = 0;
+            boolean truncated = false;
+
+            int first = start.getX() * height + start.getY();
+            stamps[first] = epoch;
+            dist[tail] = 0;
+            queue[tail++] = first;
+
+            search:
+            while (head < tail) {
+                levelEnd = tail;
+                peak = Math.max(peak, levelEnd - head);
+                if (observer != null) {
+                    observer.wavefront(distance, queue, head, levelEnd, height);
+                }
+                if (distance == maxDistance) {
+                    break; //the last wavefront is reported but not expanded
+                }
+
+                for (; head < levelEnd; head++) {
+                    int curr = queue[head];
+                    int x = curr / height, y = curr - x * height;
+                    boolean interior = x >= 1 && x < width - 1 && y >= 1 && y < height - 1;
+
+                    for (int i = 0; i < dx.length; i++) {
+                        int newX = x + dx[i];
+                        int newY = y + dy[i];
+                        int next;
+
+                        if (interior) {
+                            next = curr + offsets[i];
+                        } else {
+                            if (cyclic) {
+                                newX = wrap(newX, width);
+                                newY = wrap(newY, height);
+                            } else if (!isInside(newX, newY, width, height)) {
+                                continue;
+                            }
+                            next = newX * height + newY;
+                        }
+
+                        if (stamps[next] == epoch || map.getPixel(newX, newY) == obsColor) {
+                            continue;
+                        }
+                        if (tail == maxCells) {
+                            truncated = true;
+                            break search;
+                        }
+
+                        stamps[next] = epoch;
+                        dist[tail] = distance + 1;
+                        queue[tail++] = next;
+                    }
+                }
+                distance++;
+            }
+
+            if (observer != null) {
+                if (truncated && tail > levelEnd) {
+                    observer.wavefront(distance + 1, queue, levelEnd, tail, height); //the partial last wavefront
+                }
+                observer.finished(false);
+            }
+            if (metrics != null) {
+                metrics.searched(SearchMetrics.Kind.WITHIN_DISTANCE, head, peak, System.nanoTime() - startTime,
+                        head < tail);
+            }
+            return new SparseDistances(Arrays.copyOf(queue, tail), Arrays.copyOf(dist, tail), height, truncated);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    /**
+     * Returns this thread's cached working memory, or a new one if it is already taken (by a search started from an
+     * observer of another search). Must be given back with {@link #release(SearchScratch)}.
+     * <p>
+     * The cache is shared by every search engine on the thread, so a thread caches one set of {@code width*height}
+     * arrays, which the GC may reclaim when memory runs low.
+     */
+    static SearchScratch acquire() {
+        SoftReference<SearchScratch> ref = SCRATCH.get();
+        SearchScratch scratch = ref != null ? ref.get() : null;
+        if (scratch == null) {
+            scratch = new SearchScratch();
+            SCRATCH.set(new SoftReference<>(scratch));
+        }
+        if (scratch.inUse) {
+            return new SearchScratch();
+        }
+        scratch.inUse = true;
+        return scratch;
+    }
+
+    static void release(SearchScratch scratch) {
+        scratch.inUse = false;
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    /**
+     * Whether a path search between the pixels makes sense: both are inside the map and not obstacles.
+     */
+    private static boolean canSearch(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor) {
+        return p1 != null && p2 != null && map.isInside(p1) && map.isInside(p2)
+                && map.getPixel(p1) != obsColor && map.getPixel(p2) != obsColor;
+    }
+
+    /**
+     * BFS from {@code p1} (which must differ from {@code p2}) until {@code p2} is reached, leaving the predecessors in
+     * {@code scratch.prev}.
+     *
+     * @return {@code true} iff {@code p2} was reached
+     */
+    private static boolean searchPath(Map2D map, Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic,
+                                      Neighbourhood moves, SearchObserver observer, SearchScratch scratch) {
+        SearchMetrics metrics = MapSearch.metrics;
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        int width = map.getWidth(), height = map.getHeight();
+        if (cyclic) {
+            moves = moves.fitTo(width, height);
+        }
+        int[] dx = moves.dx, dy = moves.dy, offsets = moves.offsets(height);
+        int rx = moves.radiusX(), ry = moves.radiusY();
+        scratch.begin(cells(width, height));
+        int[] stamps = scratch.stamps, prev = scratch.prev, queue = scratch.queue;
+        int epoch = scratch.epoch;
+        int head = 0, tail = 0, distance = 0, peak = 0;
+        boolean reached = false;
+
+        int start = p1.getX() * height + p1.getY(), target = p2.getX() * height + p2.getY();
+        stamps[start] = epoch;
+        prev[start] = -1;
+        queue[tail++] = start;
+
+        search:
+        while (head < tail) {
+            int levelEnd = tail;
+            peak = Math.max(peak, levelEnd - head);
+            if (observer != null) {
+                observer.wavefront(distance, queue, head, levelEnd, height);
+            }
+
+            for (; head < levelEnd; head++) {
+                int curr = queue[head];
+                int x = curr / height, y = curr - x * height;
+                boolean interior = x >= rx && x < width - rx && y >= ry && y < height - ry;
+
+                for (int i = 0; i < dx.length; i++) {
+                    int newX = x + dx[i];
+                    int newY = y + dy[i];
+                    int next;
+
+                    if (interior) {
+                        next = curr + offsets[i];
+                    } else {
+                        if (cyclic) {
+                            newX = wrap(newX, width);
+                            newY = wrap(newY, height);
+                        } else if (!isInside(newX, newY, width, height)) {
+                            continue;
+                        }
+                        next = newX * height + newY;
+                    }
+
+                    if (stamps[next] == epoch || map.getPixel(newX, newY) == obsColor) {
+                        continue;
+                    }
+                    if (moves.checkCorners && moves.diagonal[i]
+                            && !cornerOpen(map, x, y, dx[i], dy[i], cyclic, moves.corners, obsColor, null, 0)) {
+                        continue;
+                    }
+
+                    stamps[next] = epoch;
+                    prev[next] = curr;
+                    queue[tail++] = next;
+                    if (next == target) {
+                        head++; //count the cell being expanded
+                        reached = true;
+                        break search; //prev[target] can not change anymore
+                    }
+                }
+            }
+            distance++;
+        }
+
+        if (observer != null) {
+            observer.finished(reached);
+        }
+        if (metrics != null) {
+            metrics.searched(SearchMetrics.Kind.SHORTEST_PATH, head, peak, System.nanoTime() - startTime, reached);
+        }
+        return reached;
+    }
+
+    static boolean isInside(int x, int y, int width, int height) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns {@code v mod size} for a coordinate at most one map size off the map ({@code -size <= v < 2*size}),
+     * without a branch or a division: the sign bits of {@code v} and {@code size-1-v} select whether to add or
+     * subtract {@code size}. The cyclic searches keep every step within that range with
+     * {@link Neighbourhood#fitTo(int, int)}.
+     */
+    static int wrap(int v, int size) {
+        v += (v >> 31) & size;
+        return v - (((size - 1 - v) >> 31) & size);
+    }
+
+    /**
+     * Whether the diagonal move {@code (dx, dy)} from {@code (x, y)} satisfies the corner rule. The two pixels it cuts
+     * across are open if they are not obstacles ({@code stamps == null}, {@code value} is the obstacle colour), or
+     * for {@code fill}, if they were visited or still have the old colour ({@code value}).
+     */
+    private static boolean cornerOpen(Map2D map, int x, int y, int dx, int dy, boolean cyclic,
+                                      Neighbourhood.Corners corners, int value, int[] stamps, int epoch) {
+        boolean a = isOpen(map, x + dx, y, cyclic, value, stamps, epoch);
+        boolean b = isOpen(map, x, y + dy, cyclic, value, stamps, epoch);
+        return corners == Neighbourhood.Corners.NO_CUT ? a && b : a || b;
+    }
+
+    private static boolean isOpen(Map2D map, int x, int y, boolean cyclic, int value, int[] stamps, int epoch) {
+        int width = map.getWidth(), height = map.getHeight();
+        if (cyclic) {
+            x = wrap(x, width);
+            y = wrap(y, height);
+        } else if (!isInside(x, y, width, height)) {
+            return false;
+        }
+        if (stamps == null) {
+            return map.getPixel(x, y) != value;
+        }
+        return stamps[x * height + y] == epoch || map.getPixel(x, y) == value;
+    }
+
+    /**
+     * Returns {@code width*height}, the size of the packed search arrays.
+     */
+    static int cells(int width, int height) {
+        long n = (long) width * height;
+        if (n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("map is too large to search: " + width + "x" + height);
+        }
+        return (int) n;
+    }
+
+    /**
+     * Walks the predecessors back from {@code target} (to a cell whose predecessor is -1) into a path.
+     */
+    static Pixel2D[] finalPath(int[] prev, int target, int height) {
+        int len = 0;
+        for (int cell = target; cell != -1; cell = prev[cell]) {
+            len++;
+        }
+
+        Pixel2D[] path = new Pixel2D[len];
+        int cell = target;
+        for (int i = len - 1; i >= 0; i--) {
+            path[i] = new Index2D(cell / height, cell % height);
+            cell = prev[cell];
+        }
+        return path;
+    }
+}
@@ -1,6 +1,10 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MapTest {
@@ -102,6 +106,48 @@ class MapTest {
     }
 
 
+    //atomic pixel operations
+    @Test
+    void compareAndSetOnlyUpdatesExpectedValue() {
+        assertTrue(empty3x3.compareAndSet(1, 1, 0, 5));
+        assertFalse(empty3x3.compareAndSet(1, 1, 0, 6));
+        assertEquals(5, empty3x3.getPixel(1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> empty3x3.compareAndSet(3, 0, 0, 1));
+    }
+
+    @Test
+    void getAndAddAndAccumulate() {
+        assertEquals(7, filled4x2.getAndAdd(3, 1, 2));
+        assertEquals(9, filled4x2.getPixel(3, 1));
+
+        assertEquals(9, filled4x2.accumulateAndGet(3, 1, 4, Math::max));
+        assertEquals(12, filled4x2.accumulateAndGet(3, 1, 12, Math::max));
+    }
+
+    @Test
+    void getAndAddFromManyThreadsLosesNoUpdates() throws InterruptedException {
+        Map heat = new Map(4, 4, 0);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    heat.getAndAdd(i % 4, (i / 4) % 4, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                assertEquals(8 * 10000 / 16, heat.getPixel(x, y));
+            }
+        }
+    }
+
+
     //main functions
     @Test
     void isInsideWorksOnBordersAndOutside() {
@@ -233,6 +279,21 @@ class MapTest {
         assertEquals(0, a.getPixel(4, 4));
     }
 
+    @Test
+    void drawRectsMatchesDrawRect() {
+        Map a = new Map(8, 6, 0);
+        Map b = new Map(8, 6, 0);
+
+        a.drawRects(new int[]{0, 0, 2, 1, 7, 5, 5, 3, 4, 4, 4, 4, 6, 0, 9, 1}, 2);
+        b.drawRect(new Index2D(0, 0), new Index2D(2, 1), 2);
+        b.drawRect(new Index2D(7, 5), new Index2D(5, 3), 2);
+        b.drawRect(new Index2D(4, 4), new Index2D(4, 4), 2);
+
+        assertEquals(b, a);
+        assertEquals(0, a.getPixel(6, 0)); //last rectangle has a corner outside the map
+        assertThrows(IllegalArgumentException.class, () -> a.drawRects(new int[]{1, 2, 3}, 1));
+    }
+
     @Test
     void drawLineSinglePointHorizontalAndVertical() {
         Map a = new Map(5, 5, 0);
@@ -267,6 +328,133 @@ class MapTest {
         }
     }
 
+    @Test
+    void drawLineRoundsAsSpecified() {
+        //reference: all the pixels (x, round(f(x))) for the mostly horizontal case and (round(g(y)), y) otherwise
+        int[][] lines = {{0, 0, 6, 1}, {0, 0, 6, 3}, {1, 7, 8, 2}, {2, 0, 4, 7}, {5, 9, 0, 0}, {0, 3, 8, 3}, {3, 3, 3, 3}};
+        for (int[] l : lines) {
+            Map a = new Map(10, 10, 0);
+            a.drawLine(new Index2D(l[0], l[1]), new Index2D(l[2], l[3]), 1);
+
+            Map expected = new Map(10, 10, 0);
+            int dx = Math.abs(l[2] - l[0]), dy = Math.abs(l[3] - l[1]);
+            if (dx >= dy) {
+                for (int x = Math.min(l[0], l[2]); x <= Math.max(l[0], l[2]); x++) {
+                    double y = dx == 0 ? l[1] : l[1] + (double) (x - l[0]) * (l[3] - l[1]) / (l[2] - l[0]);
+                    expected.setPixel(x, (int) Math.round(y), 1);
+                }
+            } else {
+                for (int y = Math.min(l[1], l[3]); y <= Math.max(l[1], l[3]); y++) {
+                    double x = l[0] + (double) (y - l[1]) * (l[2] - l[0]) / (l[3] - l[1]);
+                    expected.setPixel((int) Math.round(x), y, 1);
+                }
+            }
+            assertEquals(expected, a, "line " + java.util.Arrays.toString(l));
+        }
+    }
+
+    @Test
+    void drawLineClipsToMap() {
+        Map clipped = new Map(5, 5, 0);
+        clipped.drawLine(new Index2D(-3, -1), new Index2D(9, 5), 2);
+
+        Map big = new Map(20, 20, 0);
+        big.drawLine(new Index2D(7, 4), new Index2D(19, 10), 2);
+
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y < 5; y++) {
+                assertEquals(big.getPixel(x + 10, y + 5), clipped.getPixel(x, y));
+            }
+        }
+        assertEquals(2, clipped.getPixel(0, 1));
+        assertEquals(2, clipped.getPixel(4, 3));
+    }
+
+    @Test
+    void drawLineClipsExtremeEndpoints() {
+        Map a = new Map(10, 10, 0);
+        a.drawLine(new Index2D(Integer.MIN_VALUE, Integer.MIN_VALUE + 1),
+                new Index2D(Integer.MAX_VALUE, Integer.MAX_VALUE), 1);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                assertEquals(x == y ? 1 : 0, a.getPixel(x, y));
+            }
+        }
+
+        //full-range lines through an in-map midpoint must paint it
+        SplittableRandom rnd = new SplittableRandom(3);
+        for (int i = 0; i < 2000; i++) {
+            Map b = new Map(10, 10, 0);
+            int mx = rnd.nextInt(10), my = rnd.nextInt(10);
+            int dx = rnd.nextInt(Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2);
+            int dy = rnd.nextInt(Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2);
+            b.drawLine(new Index2D(mx - dx, my - dy), new Index2D(mx + dx, my + dy), 1);
+            assertEquals(1, b.getPixel(mx, my), "line through " + mx + "," + my + " +-" + dx + "," + dy);
+        }
+    }
+
+    @Test
+    void drawLineCompletelyOutsideDoesNothing() {
+        Map a = new Map(5, 5, 0);
+        a.drawLine(new Index2D(-5, 2), new Index2D(-1, 4), 2);
+        a.drawLine(new Index2D(-2, 4), new Index2D(2, 8), 2);
+
+        assertEquals(new Map(5, 5, 0), a);
+    }
+
+    @Test
+    void drawPolylineDrawsShortestPath() {
+        Map a = new Map(6, 6, 0);
+        a.drawRect(new Index2D(2, 0), new Index2D(2, 4), 1);
+        Pixel2D[] path = a.shortestPath(new Index2D(0, 0), new Index2D(5, 0), 1, false);
+
+        a.drawPolyline(path, 3);
+
+        int drawn = 0;
+        for (int x = 0; x < 6; x++) {
+            for (int y = 0; y < 6; y++) {
+                drawn += a.getPixel(x, y) == 3 ? 1 : 0;
+            }
+        }
+        for (Pixel2D p : path) {
+            assertEquals(3, a.getPixel(p));
+        }
+        assertEquals(path.length, drawn);
+    }
+
+    @Test
+    void drawCircleMatchesDistanceRule() {
+        double[] radii = {0.5, 1, 1.5, 2.2, 3, 4.9, 7.07, 30};
+        for (double rad : radii) {
+            Map a = new Map(15, 11, 0);
+            a.drawCircle(new Index2D(4, 6), rad, 1);
+
+            for (int x = 0; x < 15; x++) {
+                for (int y = 0; y < 11; y++) {
+                    int dx = x - 4, dy = y - 6;
+                    int expected = dx * dx + dy * dy <= rad * rad ? 1 : 0;
+                    assertEquals(expected, a.getPixel(x, y), "rad=" + rad + " at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void drawCirclesDrawsEveryCentreInside() {
+        Map a = new Map(10, 10, 0);
+        Map b = new Map(10, 10, 0);
+        Pixel2D[] centers = {new Index2D(1, 1), new Index2D(8, 3), null, new Index2D(20, 20), new Index2D(5, 9)};
+
+        a.drawCircles(centers, 1.5, 4);
+        b.drawCircle(centers[0], 1.5, 4);
+        b.drawCircle(centers[1], 1.5, 4);
+        b.drawCircle(centers[4], 1.5, 4);
+
+        assertEquals(b, a);
+        assertEquals(4, a.getPixel(2, 2));
+        assertEquals(0, a.getPixel(3, 3));
+    }
+
     @Test
     void drawCircleRadiusZeroDoesNothing() {
         Map a = new Map(5, 5, 0);
@@ -400,4 +588,105 @@ class MapTest {
         assertEquals(0, path[0].getX());
         assertEquals(4, path[1].getX());
     }
-}
\ No newline at end of file
+
+    @Test
+    void observerSeesEveryWavefront() {
+        Map a = new Map(5, 5, 0);
+        List<Integer> sizes = new ArrayList<>();
+        boolean[] finished = new boolean[1];
+        SearchObserver observer = new SearchObserver() {
+            @Override
+            public void wavefront(int distance, int[] cells, int from, int to, int height) {
+                assertEquals(sizes.size(), distance);
+                for (int i = from; i < to; i++) {
+                    assertEquals(distance, cells[i] / height + cells[i] % height); //distance from (0,0)
+                }
+                sizes.add(to - from);
+            }
+
+            @Override
+            public void finished(boolean reached) {
+                finished[0] = true;
+            }
+        };
+
+        Map2D dist = a.allDistance(new Index2D(0, 0), 1, false, observer);
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 4, 3, 2, 1), sizes);
+        assertTrue(finished[0]);
+        assertEquals(a.allDistance(new Index2D(0, 0), 1, false), dist);
+    }
+
+    @Test
+    void observedShortestPathStopsAtTheTarget() {
+        Map a = new Map(10, 10, 0);
+        int[] seen = new int[1];
+        boolean[] reached = new boolean[1];
+        SearchObserver observer = new SearchObserver() {
+            @Override
+            public void wavefront(int distance, int[] cells, int from, int to, int height) {
+                seen[0] += to - from;
+            }
+
+            @Override
+            public void finished(boolean r) {
+                reached[0] = r;
+            }
+        };
+
+        Pixel2D[] path = a.shortestPath(new Index2D(0, 0), new Index2D(1, 1), 1, false, observer);
+
+        assertEquals(3, path.length);
+        assertTrue(reached[0]);
+        assertEquals(3, seen[0]); //the wavefronts at distance 0 and 1
+        assertEquals(100, a.fill(new Index2D(0, 0), 3, false, null));
+    }
+
+    @Test
+    void searchesFromAnObserverDoNotShareScratch() {
+        Map a = new Map(6, 6, 0);
+        a.setPixel(2, 0, 1);
+        a.setPixel(2, 1, 1);
+        a.setPixel(2, 2, 1);
+        Map2D expected = a.allDistance(new Index2D(0, 0), 1, false);
+        List<Integer> inner = new ArrayList<>();
+        SearchObserver observer = new SearchObserver() {
+            @Override
+            public void wavefront(int distance, int[] cells, int from, int to, int height) {
+                Pixel2D[] path = a.shortestPath(new Index2D(5, 5), new Index2D(0, 0), 1, false);
+                inner.add(path.length);
+            }
+        };
+
+        for (int i = 0; i < 3; i++) { //the cached scratch is reused between outer searches
+            assertEquals(expected, a.allDistance(new Index2D(0, 0), 1, false, observer));
+            assertEquals(10, a.shortestPath(new Index2D(0, 0), new Index2D(3, 0), 1, false, observer).length);
+            assertEquals(33, a.fill(new Index2D(0, 0), 2, false, observer));
+            a.fill(new Index2D(0, 0), 0, false, null);
+        }
+        assertTrue(inner.stream().allMatch(n -> n == 11));
+    }
+
+    @Test
+    void throwingObserverGivesBackTheScratch() {
+        Map a = new Map(20, 20, 0);
+        int[][] queues = new int[3][];
+        for (int i = 0; i < queues.length; i++) {
+            int run = i;
+            SearchObserver observer = (distance, cells, from, to, height) -> {
+                queues[run] = cells; //the queue of the scratch the search took
+                if (run == 1) {
+                    throw new IllegalStateException("observer failed");
+                }
+            };
+            if (run == 1) {
+                assertThrows(IllegalStateException.class, () -> a.fill(new Index2D(0, 0), 5, false, observer));
+            } else {
+                a.allDistance(new Index2D(0, 0), 1, false, observer);
+            }
+        }
+
+        assertSame(queues[0], queues[1]);
+        assertSame(queues[0], queues[2]); //not a fresh scratch because the failed search kept it
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * A zero-copy window over a rectangular (optionally strided) region of a {@link Map}.
+ * Pixel {@code (i,j)} of the window is pixel {@code (x0+i*strideX, y0+j*strideY)} of the parent, and all reads and
+ * writes go straight to the parent's storage, so no pixels are copied when the window is created.
+ * Since it is a {@link Map2D}, the draw methods, {@code fill} and {@code allDistance} can all be run on just a region.
+ * <p>
+ * A read-only window (see {@link Map#view()} and {@link #readOnly()}) throws {@link UnsupportedOperationException}
+ * on every method that would change a pixel. Note that a window is a live view, not a snapshot: changes made to
+ * the parent are visible through it. Calling {@code init} or {@code rescale} on the parent invalidates the window.
+ *
+ * @author Joshua Hall
+ */
+public class MapWindow implements Map2D {
+    private final Map parent;
+    private final int x0, y0, width, height, strideX, strideY;
+    private final boolean readOnly;
+
+    /**
+     * Constructs a window over {@code parent}, see {@link Map#window(int, int, int, int, int, int)}.
+     *
+     * @param parent   the map that owns the storage (non-null)
+     * @param x0       the x coordinate of the window's origin in the parent
+     * @param y0       the y coordinate of the window's origin in the parent
+     * @param w        the width of the window (&gt; 0)
+     * @param h        the height of the window (&gt; 0)
+     * @param strideX  step between consecutive window columns (&gt; 0)
+     * @param strideY  step between consecutive window rows (&gt; 0)
+     * @param readOnly {@code true} iff the window should reject writes
+     */
+    MapWindow(Map parent, int x0, int y0, int w, int h, int strideX, int strideY, boolean readOnly) {
+        if (parent == null) {
+            throw new NullPointerException("null parent map");
+        }
+        if (w <= 0 || h <= 0 || strideX <= 0 || strideY <= 0) {
+            throw new IllegalArgumentException("invalid window: w=" + w + ", h=" + h + ", strideX=" + strideX + ", strideY=" + strideY);
+        }
+        if (x0 < 0 || y0 < 0
+                || x0 + (long) (w - 1) * strideX >= parent.getWidth()
+                || y0 + (long) (h - 1) * strideY >= parent.getHeight()) {
+            throw new IndexOutOfBoundsException("window does not fit inside the map");
+        }
+
+        this.parent = parent;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = w;
+        this.height = h;
+        this.strideX = strideX;
+        this.strideY = strideY;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Returns a read-only window over the same region.
+     *
+     * @return this window if it is already read-only, otherwise a read-only copy of it (sharing the same storage)
+     */
+    public MapWindow readOnly() {
+        if (readOnly) {
+            return this;
+        }
+        return new MapWindow(parent, x0, y0, width, height, strideX, strideY, true);
+    }
+
+    /**
+     * Returns a window over a region of this window (coordinates are relative to this window).
+     *
+     * @param x the x coordinate of the sub-window's origin
+     * @param y the y coordinate of the sub-window's origin
+     * @param w the width of the sub-window (&gt; 0)
+     * @param h the height of the sub-window (&gt; 0)
+     * @return a {@link MapWindow} over the given region
+     */
+    public MapWindow window(int x, int y, int w, int h) {
+        return window(x, y, w, h, 1, 1);
+    }
+
+    /**
+     * Returns a window over a region of this window (coordinates are relative to this window).
+     * The result shares the parent's storage and inherits this window's read-only flag.
+     *
+     * @param x       the x coordinate of the sub-window's origin
+     * @param y       the y coordinate of the sub-window's origin
+     * @param w       the width of the sub-window (&gt; 0)
+     * @param h       the height of the sub-window (&gt; 0)
+     * @param strideX step between consecutive sub-window columns (&gt; 0)
+     * @param strideY step between consecutive sub-window rows (&gt; 0)
+     * @return a {@link MapWindow} over the given region
+     */
+    public MapWindow window(int x, int y, int w, int h, int strideX, int strideY) {
+        if (!isInside(x, y) || w <= 0 || h <= 0 || strideX <= 0 || strideY <= 0
+                || x + (long) (w - 1) * strideX >= width || y + (long) (h - 1) * strideY >= height) {
+            throw new IndexOutOfBoundsException("sub-window does not fit inside the window");
+        }
+        return new MapWindow(parent, x0 + x * this.strideX, y0 + y * this.strideY, w, h,
+                strideX * this.strideX, strideY * this.strideY, readOnly);
+    }
+
+    /**
+     * @return {@code true} iff this window rejects writes
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Not supported, a window cannot change its dimensions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void init(int w, int h, int v) {
+        throw new UnsupportedOperationException("cannot re-init a map window");
+    }
+
+    /**
+     * Not supported, a window cannot change its dimensions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void init(int[][] arr) {
+        throw new UnsupportedOperationException("cannot re-init a map window");
+    }
+
+    /**
+     * Returns a deep copy of the pixels inside the window.
+     *
+     * @return a new 2D array of size {@code width} * {@code height}
+     */
+    @Override
+    public int[][] getMap() {
+        int[][] raw = parent.raw();
+        int[][] copy = new int[width][height];
+        for (int i = 0; i < width; i++) {
+            int[] col = raw[x0 + i * strideX];
+            if (strideY == 1) {
+                System.arraycopy(col, y0, copy[i], 0, height);
+            } else {
+                for (int j = 0; j < height; j++) {
+                    copy[i][j] = col[y0 + j * strideY];
+                }
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        if (!isInside(x, y)) {
+            throw new IndexOutOfBoundsException("x/y out of bounds");
+        }
+        return parent.raw()[x0 + x * strideX][y0 + y * strideY];
+    }
+
+    @Override
+    public int getPixel(Pixel2D p) {
+        if (p == null) {
+            throw new NullPointerException("null pixel");
+        }
+        return getPixel(p.getX(), p.getY());
+    }
+
+    @Override
+    public void setPixel(int x, int y, int v) {
+        checkWritable();
+        if (!isInside(x, y)) {
+            throw new IndexOutOfBoundsException("x/y out of bounds");
+        }
+        int px = x0 + x * strideX, py = y0 + y * strideY;
+        parent.raw()[px][py] = v;
+        parent.markDirty(px, py, px, py);
+    }
+
+    @Override
+    public void setPixel(Pixel2D p, int v) {
+        if (p == null) {
+            throw new NullPointerException("null pixel");
+        }
+        setPixel(p.getX(), p.getY(), v);
+    }
+
+    @Override
+    public boolean isInside(Pixel2D p) {
+        return p != null && isInside(p.getX(), p.getY());
+    }
+
+    @Override
+    public boolean sameDimensions(Map2D p) {
+        return p != null && p.getWidth() == width && p.getHeight() == height;
+    }
+
+    @Override
+    public void addMap2D(Map2D p) {
+        checkWritable();
+        if (p == null || !sameDimensions(p)) {
+            return;
+        }
+
+        int[][] raw = parent.raw();
+        for (int i = 0; i < width; i++) {
+            int[] col = raw[x0 + i * strideX];
+            for (int j = 0; j < height; j++) {
+                col[y0 + j * strideY] += p.getPixel(i, j);
+            }
+        }
+        markAllDirty();
+    }
+
+    @Override
+    public void mul(double scalar) {
+        checkWritable();
+        int[][] raw = parent.raw();
+        for (int i = 0; i < width; i++) {
+            int[] col = raw[x0 + i * strideX];
+            for (int j = 0; j < height; j++) {
+                int y = y0 + j * strideY;
+                col[y] = (int) (col[y] * scalar);
+            }
+        }
+        markAllDirty();
+    }
+
+    /**
+     * Not supported, a window cannot change its dimensions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void rescale(double sx, double sy) {
+        throw new UnsupportedOperationException("cannot rescale a map window");
+    }
+
+    @Override
+    public void drawCircle(Pixel2D center, double rad, int color) {
+        checkWritable();
+        Rasterizer.drawCircle(this, center, rad, color);
+    }
+
+    @Override
+    public void drawLine(Pixel2D p1, Pixel2D p2, int color) {
+        checkWritable();
+        Rasterizer.drawLine(this, p1, p2, color);
+    }
+
+    @Override
+    public void drawRect(Pixel2D p1, Pixel2D p2, int color) {
+        checkWritable();
+        Rasterizer.drawRect(this, p1, p2, color);
+    }
+
+    /**
+     * Compares this window to another {@code Object}, in the same way as {@link Map#equals(Object)}.
+     *
+     * @param ob the reference object with which to compare.
+     * @return {@code true} iff {@code ob} is a {@link Map2D} with the same dimensions and pixel values
+     */
+    @Override
+    public boolean equals(Object ob) {
+        if (this == ob) {
+            return true;
+        }
+
+        if (!(ob instanceof Map2D)) {
+            return false;
+        }
+
+        Map2D other = (Map2D) ob;
+        if (!sameDimensions(other)) {
+            return false;
+        }
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (getPixel(x, y) != other.getPixel(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the same hash as a {@link Map} with these pixels, see {@link Map#hashOf(Map2D)}
+     */
+    @Override
+    public int hashCode() {
+        return Map.hashOf(this);
+    }
+
+    @Override
+    public int fill(Pixel2D xy, int new_v, boolean cyclic) {
+        checkWritable();
+        return MapSearch.fill(this, xy, new_v, cyclic, null);
+    }
+
+    @Override
+    public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, boolean cyclic) {
+        return MapSearch.shortestPath(this, p1, p2, obsColor, cyclic, null);
+    }
+
+    @Override
+    public Map2D allDistance(Pixel2D start, int obsColor, boolean cyclic) {
+        return MapSearch.allDistance(this, start, obsColor, cyclic, null);
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private void markAllDirty() {
+        parent.markDirty(x0, y0, x0 + (width - 1) * strideX, y0 + (height - 1) * strideY);
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("read-only map view");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapWindowTest {
+
+    private Map base;
+
+    @BeforeEach
+    void setUp() {
+        //base[x][y] = 10*x + y
+        int[][] arr = new int[6][5];
+        for (int x = 0; x < 6; x++) {
+            for (int y = 0; y < 5; y++) {
+                arr[x][y] = 10 * x + y;
+            }
+        }
+        base = new Map(arr);
+    }
+
+
+    //views
+    @Test
+    void viewReadsThroughToParent() {
+        MapWindow view = base.view();
+        assertEquals(6, view.getWidth());
+        assertEquals(5, view.getHeight());
+        assertEquals(base, view);
+
+        base.setPixel(2, 3, 99);
+        assertEquals(99, view.getPixel(2, 3));
+    }
+
+    @Test
+    void equalMapsHashAlike() {
+        MapWindow window = base.window(1, 2, 2, 3);
+        Map crop = base.crop(1, 2, 2, 3);
+
+        assertEquals(crop, window);
+        assertEquals(crop.hashCode(), window.hashCode());
+        assertEquals(base.hashCode(), base.view().hashCode());
+        assertNotEquals(new Map(2, 3, 0).hashCode(), new Map(3, 2, 0).hashCode());
+    }
+
+    @Test
+    void viewRejectsWrites() {
+        MapWindow view = base.view();
+        assertTrue(view.isReadOnly());
+
+        assertThrows(UnsupportedOperationException.class, () -> view.setPixel(0, 0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> view.fill(new Index2D(0, 0), 1, false));
+        assertThrows(UnsupportedOperationException.class, () -> view.drawRect(new Index2D(0, 0), new Index2D(1, 1), 1));
+        assertThrows(UnsupportedOperationException.class, () -> view.rescale(2, 2));
+    }
+
+
+    //windows
+    @Test
+    void windowMapsCoordinatesWithOffset() {
+        MapWindow w = base.window(2, 1, 3, 2);
+
+        assertEquals(3, w.getWidth());
+        assertEquals(2, w.getHeight());
+        assertEquals(21, w.getPixel(0, 0));
+        assertEquals(42, w.getPixel(2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> w.getPixel(3, 0));
+    }
+
+    @Test
+    void windowMapsCoordinatesWithStride() {
+        MapWindow w = base.window(1, 0, 3, 3, 2, 2);
+
+        assertEquals(10, w.getPixel(0, 0));
+        assertEquals(32, w.getPixel(1, 1));
+        assertEquals(54, w.getPixel(2, 2));
+    }
+
+    @Test
+    void windowWritesGoToParent() {
+        MapWindow w = base.window(2, 1, 3, 2);
+
+        w.drawRect(new Index2D(0, 0), new Index2D(2, 1), 7);
+
+        assertEquals(7, base.getPixel(2, 1));
+        assertEquals(7, base.getPixel(4, 2));
+        assertEquals(11, base.getPixel(1, 1));
+        assertEquals(23, base.getPixel(2, 3));
+    }
+
+    @Test
+    void windowThatDoesNotFitThrows() {
+        assertThrows(IndexOutOfBoundsException.class, () -> base.window(4, 0, 3, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> base.window(0, 0, 3, 3, 1, 3));
+        assertThrows(IllegalArgumentException.class, () -> base.window(0, 0, 0, 1));
+    }
+
+    @Test
+    void subWindowComposesOffsets() {
+        MapWindow w = base.window(1, 1, 4, 4).window(1, 1, 2, 2);
+
+        assertEquals(22, w.getPixel(0, 0));
+        assertEquals(33, w.getPixel(1, 1));
+    }
+
+    @Test
+    void fillStaysInsideWindow() {
+        Map m = new Map(5, 5, 0);
+        MapWindow w = m.window(1, 1, 3, 3);
+
+        int filled = w.fill(new Index2D(1, 1), 4, false);
+
+        assertEquals(9, filled);
+        assertEquals(4, m.getPixel(1, 1));
+        assertEquals(4, m.getPixel(3, 3));
+        assertEquals(0, m.getPixel(0, 0));
+        assertEquals(0, m.getPixel(4, 2));
+    }
+
+    @Test
+    void allDistanceOnWindow() {
+        Map m = new Map(5, 5, 0);
+        MapWindow w = m.window(2, 2, 3, 3);
+
+        Map2D dist = w.allDistance(new Index2D(0, 0), 1, false);
+
+        assertEquals(3, dist.getWidth());
+        assertEquals(0, dist.getPixel(0, 0));
+        assertEquals(4, dist.getPixel(2, 2));
+    }
+
+
+    //crop
+    @Test
+    void cropIsADeepCopy() {
+        Map c = base.crop(1, 2, 2, 3);
+
+        assertEquals(2, c.getWidth());
+        assertEquals(3, c.getHeight());
+        assertEquals(12, c.getPixel(0, 0));
+        assertEquals(24, c.getPixel(1, 2));
+
+        c.setPixel(0, 0, -1);
+        assertEquals(12, base.getPixel(1, 2));
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The moves a search may take from a pixel: the 4 orthogonal neighbours ({@link #FOUR}, the {@link Map2D} default),
+ * all 8 ({@link #EIGHT}), or any custom stencil of {@code (dx, dy)} offsets. Every move costs one step.
+ * <p>
+ * For the diagonal moves ({@code |dx| == |dy| == 1}) a {@link Corners} rule decides whether a search may pass between
+ * the two orthogonal pixels it cuts across, e.g. to stop paths from slipping through the corner where two walls meet.
+ * A pixel is blocked if it is an obstacle (or, for {@code fill}, not of the colour being filled), or outside a
+ * non-cyclic map.
+ * <p>
+ * Immutable. The searches turn the moves into offsets of packed cells ({@code dx*height+dy}), cached for the last
+ * map height, so pixels that are at least {@link #radiusX()}/{@link #radiusY()} from the edges take a move with a
+ * single add.
+ *
+ * @author Joshua Hall
+ */
+public final class Neighbourhood {
+    /**
+     * What a diagonal move needs from the two orthogonal pixels it cuts across.
+     */
+    public enum Corners {
+        /**
+         * Nothing: diagonal moves are always allowed.
+         */
+        CUT,
+        /**
+         * At least one of them is open, so a move can not squeeze between two diagonal walls.
+         */
+        NO_SQUEEZE,
+        /**
+         * Both are open, so a move never touches the corner of a wall.
+         */
+        NO_CUT
+    }
+
+    /**
+     * The 4 orthogonal neighbours, as used by {@link Map2D#shortestPath(Pixel2D, Pixel2D, int, boolean)}.
+     */
+    public static final Neighbourhood FOUR = new Neighbourhood(new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}},
+            Corners.CUT);
+    /**
+     * All 8 neighbours, with diagonals cutting corners freely.
+     */
+    public static final Neighbourhood EIGHT = eight(Corners.CUT);
+
+    final int[] dx, dy;
+    final boolean[] diagonal;
+    final Corners corners;
+    final boolean checkCorners; //some move is diagonal and the rule is not CUT
+    private final int radiusX, radiusY;
+    private volatile int[] offsets; //the cache of offsets(height), with the height in the last slot
+
+    private Neighbourhood(int[][] moves, Corners corners) {
+        this(column(moves, 0), column(moves, 1), diagonals(moves), corners);
+    }
+
+    private Neighbourhood(int[] dx, int[] dy, boolean[] diagonal, Corners corners) {
+        this.dx = dx;
+        this.dy = dy;
+        this.diagonal = diagonal;
+        this.corners = corners;
+        boolean anyDiagonal = false;
+        int rx = 0, ry = 0;
+        for (int i = 0; i < dx.length; i++) {
+            anyDiagonal |= diagonal[i];
+            rx = Math.max(rx, Math.abs(dx[i]));
+            ry = Math.max(ry, Math.abs(dy[i]));
+        }
+        this.checkCorners = anyDiagonal && corners != Corners.CUT;
+        this.radiusX = rx;
+        this.radiusY = ry;
+    }
+
+    /**
+     * Returns the 8-neighbourhood with a corner rule.
+     *
+     * @param corners what the diagonal moves need (non-null)
+     * @return the orthogonal moves followed by the diagonal ones
+     */
+    public static Neighbourhood eight(Corners corners) {
+        return of(new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}}, corners);
+    }
+
+    /**
+     * Returns a custom neighbourhood. The moves are tried in the given order, which decides between paths of the same
+     * length.
+     *
+     * @param moves   the {@code {dx, dy}} of every move (at least one, no {@code {0, 0}} and no duplicates)
+     * @param corners what the diagonal moves need (non-null)
+     * @return the neighbourhood
+     */
+    public static Neighbourhood of(int[][] moves, Corners corners) {
+        if (moves == null || corners == null) {
+            throw new NullPointerException("null moves/corners");
+        }
+        if (moves.length == 0) {
+            throw new IllegalArgumentException("moves must be >0. you have: 0");
+        }
+        Set<Long> seen = new HashSet<>();
+        for (int[] move : moves) {
+            if (move.length != 2 || (move[0] == 0 && move[1] == 0)) {
+                throw new IllegalArgumentException("a move must be a non-zero {dx, dy}");
+            }
+            if (!seen.add((long) move[0] << 32 | (move[1] & 0xffffffffL))) {
+                throw new IllegalArgumentException("duplicate move: " + move[0] + "," + move[1]);
+            }
+        }
+        return new Neighbourhood(moves, corners);
+    }
+
+    /**
+     * @return the number of moves
+     */
+    public int size() {
+        return dx.length;
+    }
+
+    /**
+     * @param i a move index in {@code [0, size())}
+     * @return the x offset of the move
+     */
+    public int dx(int i) {
+        return dx[i];
+    }
+
+    /**
+     * @param i a move index in {@code [0, size())}
+     * @return the y offset of the move
+     */
+    public int dy(int i) {
+        return dy[i];
+    }
+
+    /**
+     * @return the corner rule of the diagonal moves
+     */
+    public Corners corners() {
+        return corners;
+    }
+
+    /**
+     * @return the largest {@code |dx|} of a move
+     */
+    public int radiusX() {
+        return radiusX;
+    }
+
+    /**
+     * @return the largest {@code |dy|} of a move
+     */
+    public int radiusY() {
+        return radiusY;
+    }
+
+    /**
+     * Returns the moves for a search on a cyclic {@code width*height} map: every step longer than the map is shortened
+     * by whole map sizes ({@code dx % width}, {@code dy % height}), which leads to the same pixel, so a step never
+     * takes a coordinate more than one map size off the map (see {@link MapSearch#wrap(int, int)}). The diagonal
+     * moves, and so the corner rule, stay those of this neighbourhood.
+     *
+     * @return this neighbourhood if no step is longer than the map, else the shortened copy
+     */
+    Neighbourhood fitTo(int width, int height) {
+        if (radiusX <= width && radiusY <= height) {
+            return this;
+        }
+        int[] fx = dx.clone(), fy = dy.clone();
+        for (int i = 0; i < fx.length; i++) {
+            fx[i] %= width;
+            fy[i] %= height;
+        }
+        return new Neighbourhood(fx, fy, diagonal, corners);
+    }
+
+    /**
+     * Returns the moves as offsets of packed cells ({@code x*height+y}) on a map of the given height.
+     * The offsets of the last height are cached, so repeated searches over one map do not recompute them.
+     *
+     * @return {@code offsets[i]} for move {@code i} (the array is shared and has one extra slot: do not change it)
+     */
+    int[] offsets(int height) {
+        int[] offsets = this.offsets;
+        if (offsets == null || offsets[dx.length] != height) {
+            offsets = new int[dx.length + 1];
+            for (int i = 0; i < dx.length; i++) {
+                offsets[i] = dx[i] * height + dy[i];
+            }
+            offsets[dx.length] = height;
+            this.offsets = offsets; //a racing thread at worst computes its own copy
+        }
+        return offsets;
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static int[] column(int[][] moves, int i) {
+        int[] c = new int[moves.length];
+        for (int m = 0; m < moves.length; m++) {
+            c[m] = moves[m][i];
+        }
+        return c;
+    }
+
+    private static boolean[] diagonals(int[][] moves) {
+        boolean[] diagonal = new boolean[moves.length];
+        for (int m = 0; m < moves.length; m++) {
+            diagonal[m] = Math.abs(moves[m][0]) == 1 && Math.abs(moves[m][1]) == 1;
+        }
+        return diagonal;
+    }
+}
@@ -0,0 +1,178 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NeighbourhoodTest {
+    private static final int[][] KNIGHT = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+
+    @Test
+    void fourMatchesTheDefaultSearches() {
+        Map m = MapGenerator.obstacles(37, 23, 0.3, 11);
+        m.setPixel(5, 5, MapGenerator.FLOOR);
+        for (boolean cyclic : new boolean[]{false, true}) {
+            assertEquals(m.allDistance(new Index2D(5, 5), MapGenerator.WALL, cyclic),
+                    m.allDistance(new Index2D(5, 5), MapGenerator.WALL, cyclic, Neighbourhood.FOUR, null));
+        }
+    }
+
+    @Test
+    void eightCountsChebyshevSteps() {
+        Map m = new Map(9, 7, 0);
+
+        Map2D dist = m.allDistance(new Index2D(2, 3), 1, false, Neighbourhood.EIGHT, null);
+        Pixel2D[] path = m.shortestPath(new Index2D(0, 0), new Index2D(6, 4), 1, false, Neighbourhood.EIGHT, null);
+
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 7; y++) {
+                assertEquals(Math.max(Math.abs(x - 2), Math.abs(y - 3)), dist.getPixel(x, y));
+            }
+        }
+        assertEquals(7, path.length);
+        assertEquals(63, m.fill(new Index2D(4, 4), 2, false, Neighbourhood.EIGHT, null));
+    }
+
+    @Test
+    void cornerRules() {
+        //two walls touching diagonally: (1,0) and (0,1)
+        Map m = new Map(3, 3, 0);
+        m.setPixel(1, 0, 1);
+        m.setPixel(0, 1, 1);
+        Pixel2D from = new Index2D(0, 0), to = new Index2D(1, 1);
+        Neighbourhood noSqueeze = Neighbourhood.eight(Neighbourhood.Corners.NO_SQUEEZE);
+        Neighbourhood noCut = Neighbourhood.eight(Neighbourhood.Corners.NO_CUT);
+
+        assertEquals(2, m.shortestPath(from, to, 1, false, Neighbourhood.EIGHT, null).length);
+        assertNull(m.shortestPath(from, to, 1, false, noSqueeze, null));
+        assertNull(m.shortestPath(from, to, 1, false, noCut, null));
+
+        //one wall: only NO_CUT goes around it
+        m.setPixel(0, 1, 0);
+        assertEquals(2, m.shortestPath(from, to, 1, false, noSqueeze, null).length);
+        assertEquals(3, m.shortestPath(from, to, 1, false, noCut, null).length);
+        assertEquals(2, m.allDistance(from, 1, false, noCut, null).getPixel(1, 1));
+
+        //across the edge of a cyclic map
+        m.setPixel(1, 0, 0);
+        m.setPixel(2, 0, 1);
+        m.setPixel(0, 2, 1);
+        assertEquals(2, m.shortestPath(from, new Index2D(2, 2), 1, true, Neighbourhood.EIGHT, null).length);
+        assertEquals(3, m.shortestPath(from, new Index2D(2, 2), 1, true, noSqueeze, null).length);
+    }
+
+    @Test
+    void fillFollowsTheCornerRule() {
+        //a diagonal line of 0s on a map of 1s
+        Map m = new Map(5, 5, 1);
+        for (int i = 0; i < 5; i++) {
+            m.setPixel(i, i, 0);
+        }
+
+        assertEquals(1, new Map(m.getMap()).fill(new Index2D(0, 0), 2, false));
+        assertEquals(5, new Map(m.getMap()).fill(new Index2D(0, 0), 2, false, Neighbourhood.EIGHT, null));
+        assertEquals(1, new Map(m.getMap()).fill(new Index2D(0, 0), 2, false,
+                Neighbourhood.eight(Neighbourhood.Corners.NO_SQUEEZE), null));
+
+        //a filled neighbour still counts as open for the corner rule
+        Map block = new Map(3, 3, 0);
+        Neighbourhood noCut = Neighbourhood.eight(Neighbourhood.Corners.NO_CUT);
+        assertEquals(9, block.fill(new Index2D(1, 1), 2, false, noCut, null));
+    }
+
+    @Test
+    void customStencilMatchesPlainBfs() {
+        Neighbourhood knight = Neighbourhood.of(KNIGHT, Neighbourhood.Corners.CUT);
+        for (int[] size : new int[][]{{8, 8}, {11, 5}, {3, 3}, {1, 4}}) {
+            for (boolean cyclic : new boolean[]{false, true}) {
+                Map m = new Map(size[0], size[1], 0);
+                if (size[0] > 3) {
+                    m.setPixel(2, 2, 1);
+                    m.setPixel(3, 1, 1);
+                }
+
+                Map2D dist = m.allDistance(new Index2D(0, 0), 1, cyclic, knight, null);
+
+                assertEquals(new Map(bfs(m, KNIGHT, cyclic)), dist, Arrays.toString(size) + " " + cyclic);
+            }
+        }
+        assertEquals(2, knight.radiusX());
+        assertEquals(2, knight.radiusY());
+    }
+
+    @Test
+    void fitToShortensOnlyWideSteps() {
+        Neighbourhood wide = Neighbourhood.of(new int[][]{{3, 1}, {1, 1}, {-5, 0}}, Neighbourhood.Corners.NO_CUT);
+
+        Neighbourhood fit = wide.fitTo(2, 7);
+
+        assertSame(wide, wide.fitTo(5, 7));
+        assertArrayEquals(new int[]{1, 1, -1}, fit.dx);
+        assertArrayEquals(new int[]{1, 1, 0}, fit.dy);
+        assertArrayEquals(new boolean[]{false, true, false}, fit.diagonal); //(3,1) cuts no corner, even at (1,1)
+        assertEquals(1, fit.radiusX());
+    }
+
+    @Test
+    void invalidStencils() {
+        assertThrows(IllegalArgumentException.class, () -> Neighbourhood.of(new int[0][], Neighbourhood.Corners.CUT));
+        assertThrows(IllegalArgumentException.class,
+                () -> Neighbourhood.of(new int[][]{{1, 0}, {0, 0}}, Neighbourhood.Corners.CUT));
+        assertThrows(IllegalArgumentException.class,
+                () -> Neighbourhood.of(new int[][]{{1, 0}, {1, 0}}, Neighbourhood.Corners.CUT));
+        assertThrows(NullPointerException.class, () -> Neighbourhood.of(KNIGHT, null));
+        assertEquals(8, Neighbourhood.EIGHT.size());
+        assertEquals(-1, Neighbourhood.FOUR.dx(1));
+    }
+
+    @Test
+    void offsetsAreCachedPerHeight() {
+        Neighbourhood knight = Neighbourhood.of(KNIGHT, Neighbourhood.Corners.CUT);
+        int[] seven = knight.offsets(7);
+
+        assertSame(seven, knight.offsets(7));
+        assertEquals(1 * 7 + 2, seven[0]);
+        assertEquals(-1 * 9 + 2, knight.offsets(9)[7]);
+        assertEquals(2 * 7 + 1, knight.offsets(7)[1]);
+    }
+
+    @Test
+    void wrapMatchesFloorMod() {
+        for (int size : new int[]{1, 2, 7, 1024}) {
+            for (int v = -size; v < 2 * size; v++) {
+                assertEquals(Math.floorMod(v, size), MapSearch.wrap(v, size), v + " mod " + size);
+            }
+        }
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static int[][] bfs(Map m, int[][] moves, boolean cyclic) {
+        int w = m.getWidth(), h = m.getHeight();
+        int[][] d = new int[w][h];
+        for (int[] col : d) {
+            Arrays.fill(col, -1);
+        }
+        d[0][0] = 0;
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{0, 0});
+        while (!queue.isEmpty()) {
+            int[] p = queue.poll();
+            for (int[] move : moves) {
+                int x = p[0] + move[0], y = p[1] + move[1];
+                if (cyclic) {
+                    x = Math.floorMod(x, w);
+                    y = Math.floorMod(y, h);
+                } else if (x < 0 || x >= w || y < 0 || y >= h) {
+                    continue;
+                }
+                if (d[x][y] < 0 && m.getPixel(x, y) != 1) {
+                    d[x][y] = d[p[0]][p[1]] + 1;
+                    queue.add(new int[]{x, y});
+                }
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,201 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers many {@link Map2D#shortestPath(Pixel2D, Pixel2D, int, boolean)} queries against one map.
+ * Every query borrows the calling thread's {@link SearchScratch} from {@link MapSearch} instead of keeping one per
+ * engine, so after the first query a thread allocates nothing but the returned path (nothing at all for
+ * {@link #distance(Pixel2D, Pixel2D)}), and a query only costs time for the cells it reaches. Batches are split across
+ * a pool of worker threads owned by the engine.
+ * <p>
+ * The map is read live, so it must not be changed while queries run. Close the engine to stop its workers.
+ *
+ * @author Joshua Hall
+ */
+public class PathQueryEngine implements AutoCloseable {
+    private static final int CHUNKS_PER_THREAD = 4; //batch pieces per worker, to even out uneven queries
+
+    private final Map2D map;
+    private final int obsColor;
+    private final boolean cyclic;
+    private final int threads;
+    private final ExecutorService pool;
+
+    /**
+     * Creates an engine with one worker per available processor.
+     *
+     * @param map      the map to search (non-null)
+     * @param obsColor the color which is addressed as an obstacle.
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     */
+    public PathQueryEngine(Map2D map, int obsColor, boolean cyclic) {
+        this(map, obsColor, cyclic, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param map      the map to search (non-null)
+     * @param obsColor the color which is addressed as an obstacle.
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     * @param threads  the number of worker threads for batches (&gt; 0)
+     */
+    public PathQueryEngine(Map2D map, int obsColor, boolean cyclic, int threads) {
+        if (map == null) {
+            throw new NullPointerException("null map");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be >0. you have: " + threads);
+        }
+        this.map = map;
+        this.obsColor = obsColor;
+        this.cyclic = cyclic;
+        this.threads = threads;
+
+        AtomicInteger ids = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "path-query-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Computes one shortest path on the calling thread.
+     *
+     * @param p1 starting pixel
+     * @param p2 finishing pixel
+     * @return an array of pixels representing the path from {@code p1} to {@code p2}, or {@code null}
+     */
+    public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2) {
+        SearchScratch scratch = MapSearch.acquire();
+        try {
+            return MapSearch.shortestPath(map, p1, p2, obsColor, cyclic, null, scratch);
+        } finally {
+            MapSearch.release(scratch);
+        }
+    }
+
+    /**
+     * Computes the length of one shortest path on the calling thread, without building the path.
+     *
+     * @param p1 starting pixel
+     * @param p2 finishing pixel
+     * @return the number of steps from {@code p1} to {@code p2}, or -1 if there is no path
+     */
+    public int distance(Pixel2D p1, Pixel2D p2) {
+        SearchScratch scratch = MapSearch.acquire();
+        try {
+            return MapSearch.pathLength(map, p1, p2, obsColor, cyclic, scratch);
+        } finally {
+            MapSearch.release(scratch);
+        }
+    }
+
+    /**
+     * Computes a batch of shortest paths on the worker threads.
+     *
+     * @param from the starting pixels
+     * @param to   the finishing pixels (as many as {@code from})
+     * @return {@code paths[i]} is the path from {@code from[i]} to {@code to[i]}, or {@code null}
+     */
+    public Pixel2D[][] shortestPaths(Pixel2D[] from, Pixel2D[] to) {
+        Pixel2D[][] paths = new Pixel2D[checkBatch(from, to)][];
+        runBatch(from.length, (lo, hi) -> {
+            SearchScratch s = MapSearch.acquire();
+            try {
+                for (int i = lo; i < hi; i++) {
+                    paths[i] = MapSearch.shortestPath(map, from[i], to[i], obsColor, cyclic, null, s);
+                }
+            } finally {
+                MapSearch.release(s);
+            }
+        });
+        return paths;
+    }
+
+    /**
+     * Computes a batch of shortest path lengths on the worker threads, without building the paths.
+     *
+     * @param from the starting pixels
+     * @param to   the finishing pixels (as many as {@code from})
+     * @return {@code distances[i]} is the number of steps from {@code from[i]} to {@code to[i]}, or -1
+     */
+    public int[] distances(Pixel2D[] from, Pixel2D[] to) {
+        int[] distances = new int[checkBatch(from, to)];
+        runBatch(from.length, (lo, hi) -> {
+            SearchScratch s = MapSearch.acquire();
+            try {
+                for (int i = lo; i < hi; i++) {
+                    distances[i] = MapSearch.pathLength(map, from[i], to[i], obsColor, cyclic, s);
+                }
+            } finally {
+                MapSearch.release(s);
+            }
+        });
+        return distances;
+    }
+
+    /**
+     * Stops the worker threads. Single queries still work afterwards, batches do not.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static int checkBatch(Pixel2D[] from, Pixel2D[] to) {
+        if (from.length != to.length) {
+            throw new IllegalArgumentException("from and to must have the same length. you have: "
+                    + from.length + ", " + to.length);
+        }
+        return from.length;
+    }
+
+    /**
+     * Splits {@code [0, n)} into chunks, runs them on the pool and waits for all of them.
+     */
+    private void runBatch(int n, Chunk chunk) {
+        int chunks = Math.min(n, threads * CHUNKS_PER_THREAD);
+        if (chunks <= 1) {
+            chunk.run(0, n); //not worth a hand-off
+            return;
+        }
+
+        List<Future<?>> pending = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int lo = (int) ((long) n * c / chunks), hi = (int) ((long) n * (c + 1) / chunks);
+            pending.add(pool.submit(() -> chunk.run(lo, hi)));
+        }
+        try {
+            for (Future<?> f : pending) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for (Future<?> f : pending) {
+                f.cancel(false);
+            }
+        }
+    }
+
+    /// /////////////////// Private Classes ///////////////////////
+
+    private interface Chunk {
+        void run(int lo, int hi);
+    }
+}
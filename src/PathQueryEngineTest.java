@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathQueryEngineTest {
+
+    @Test
+    void matchesShortestPath() {
+        Map m = MapGenerator.obstacles(60, 40, 0.3, 4);
+        SplittableRandom rnd = new SplittableRandom(1);
+
+        try (PathQueryEngine engine = new PathQueryEngine(m, 1, true, 2)) {
+            for (int i = 0; i < 500; i++) { //many searches on the same scratch space
+                Pixel2D p1 = new Index2D(rnd.nextInt(60), rnd.nextInt(40)), p2 = new Index2D(rnd.nextInt(60), rnd.nextInt(40));
+                Pixel2D[] expected = m.shortestPath(p1, p2, 1, true);
+
+                assertArrayEquals(expected, engine.shortestPath(p1, p2));
+                assertEquals(expected == null ? -1 : expected.length - 1, engine.distance(p1, p2));
+            }
+        }
+    }
+
+    @Test
+    void batchesMatchSingleQueries() {
+        Map m = MapGenerator.primMaze(81, 61, 2);
+        SplittableRandom rnd = new SplittableRandom(3);
+        Pixel2D[] from = new Pixel2D[300], to = new Pixel2D[300];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = new Index2D(rnd.nextInt(81), rnd.nextInt(61));
+            to[i] = new Index2D(rnd.nextInt(81), rnd.nextInt(61));
+        }
+
+        try (PathQueryEngine engine = new PathQueryEngine(m, MapGenerator.WALL, false, 3)) {
+            Pixel2D[][] paths = engine.shortestPaths(from, to);
+            int[] distances = engine.distances(from, to);
+
+            for (int i = 0; i < from.length; i++) {
+                Pixel2D[] expected = m.shortestPath(from[i], to[i], MapGenerator.WALL, false);
+                assertArrayEquals(expected, paths[i]);
+                assertEquals(expected == null ? -1 : expected.length - 1, distances[i]);
+            }
+            assertEquals(0, engine.distances(new Pixel2D[0], new Pixel2D[0]).length);
+            assertThrows(IllegalArgumentException.class, () -> engine.distances(from, new Pixel2D[1]));
+        }
+    }
+
+    @Test
+    void queriesUseTheSharedThreadScratch() {
+        Map m = new Map(30, 20, 0);
+        SearchScratch shared = MapSearch.acquire();
+
+        try (PathQueryEngine engine = new PathQueryEngine(m, 1, false, 1)) {
+            int epoch = shared.epoch;
+            assertEquals(29 + 19, engine.distance(new Index2D(0, 0), new Index2D(29, 19))); //taken: uses its own
+            assertEquals(epoch, shared.epoch);
+
+            MapSearch.release(shared);
+            assertEquals(29 + 19, engine.distance(new Index2D(0, 0), new Index2D(29, 19)));
+            assertNotEquals(epoch, shared.epoch);
+            assertFalse(shared.inUse);
+        }
+    }
+
+    @Test
+    void epochWrapClearsStamps() {
+        SearchScratch scratch = new SearchScratch();
+        scratch.begin(4);
+        scratch.stamps[2] = scratch.epoch;
+        scratch.epoch = -1; //the next begin wraps to 0
+
+        scratch.begin(4);
+
+        assertEquals(1, scratch.epoch);
+        assertEquals(0, scratch.stamps[2]);
+    }
+}
@@ -0,0 +1,625 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * The drawing primitives (circles, lines and rectangles) written against the
+ * {@link Map2D} interface, so they can be shared by {@link Map} and by the views/windows over it ({@link MapWindow}).
+ *
+ * @author Joshua Hall
+ */
+final class Rasterizer {
+    private static final long EXACT_SPAN = 1L << 30; //line clipping is done in long arithmetic below this length
+
+    private Rasterizer() {
+    }
+
+    /**
+     * Draws a filled circle, see {@link Map#drawCircle(Pixel2D, double, int)}.
+     * Only the columns of the (clipped) bounding box are visited, and each column of the circle is filled as a
+     * single span. The pixels are exactly those with {@code x^2+y^2<=r^2}.
+     *
+     * @param map    the map to draw on
+     * @param center centre of the circle (must be inside the map)
+     * @param rad    circle radius (&gt; 0)
+     * @param color  the (new) color to be used in the drawing.
+     */
+    static void drawCircle(Map2D map, Pixel2D center, double rad, int color) {
+        if (!map.isInside(center) || rad <= 0) {
+            return;
+        }
+        drawCircle(map, center.getX(), center.getY(), circleSpans(map, rad), color);
+    }
+
+    /**
+     * Draws many filled circles of the same radius, see {@link Map#drawCircles(Pixel2D[], double, int)}.
+     * The spans of the circle are only computed once.
+     *
+     * @param map     the map to draw on
+     * @param centers the centres of the circles ({@code null} entries and centres outside the map are skipped)
+     * @param rad     circle radius (&gt; 0)
+     * @param color   the (new) color to be used in the drawing.
+     */
+    static void drawCircles(Map2D map, Pixel2D[] centers, double rad, int color) {
+        if (centers == null || rad <= 0) {
+            return;
+        }
+
+        int[] spans = circleSpans(map, rad);
+        for (Pixel2D c : centers) {
+            if (map.isInside(c)) {
+                drawCircle(map, c.getX(), c.getY(), spans, color);
+            }
+        }
+    }
+
+    /**
+     * Fills the pixels {@code (x, y0..y1)} (inclusive), clipped to the map.
+     * Writes straight into the storage when {@code map} is a {@link Map}.
+     *
+     * @param map   the map to draw on
+     * @param x     the column
+     * @param y0    first row
+     * @param y1    last row
+     * @param color the (new) color to be used in the drawing.
+     */
+    static void fillSpan(Map2D map, int x, int y0, int y1, int color) {
+        if (x < 0 || x >= map.getWidth()) {
+            return;
+        }
+        y0 = Math.max(y0, 0);
+        y1 = Math.min(y1, map.getHeight() - 1);
+        if (y0 > y1) {
+            return;
+        }
+
+        if (map instanceof Map) {
+            Arrays.fill(((Map) map).raw()[x], y0, y1 + 1, color);
+            ((Map) map).markDirty(x, y0, x, y1);
+        } else {
+            for (int y = y0; y <= y1; y++) {
+                map.setPixel(x, y, color);
+            }
+        }
+    }
+
+    /**
+     * Draws a straight line between two pixels, see {@link Map#drawLine(Pixel2D, Pixel2D, int)}.
+     *
+     * @param map   the map to draw on
+     * @param p1    start point (non-null)
+     * @param p2    end point (non-null)
+     * @param color colour used to draw the line.
+     */
+    static void drawLine(Map2D map, Pixel2D p1, Pixel2D p2, int color) {
+        if (p1 == null || p2 == null) {
+            return;
+        }
+        drawLine(map, p1.getX(), p1.getY(), p2.getX(), p2.getY(), color);
+    }
+
+    /**
+     * Draws the line {@code (x1,y1)-(x2,y2)}, clipped to the map.
+     * Along the major axis every pixel gets {@code round(f(x))} (or {@code round(g(y))}) as the other coordinate,
+     * as specified by {@link Map2D#drawLine}, but it is computed with an integer error term (no floating point).
+     * Endpoints outside the map are allowed: trivially invisible lines are rejected with Cohen-Sutherland outcodes,
+     * and the others are clipped to the exact range of steps that lands inside the map.
+     *
+     * @param map   the map to draw on
+     * @param x1    start x
+     * @param y1    start y
+     * @param x2    end x
+     * @param y2    end y
+     * @param color colour used to draw the line.
+     */
+    static void drawLine(Map2D map, int x1, int y1, int x2, int y2, int color) {
+        int w = map.getWidth(), h = map.getHeight();
+        if ((outCode(x1, y1, w, h) & outCode(x2, y2, w, h)) != 0) {
+            return; //both ends on the same outer side of the map
+        }
+
+        int[][] raw = map instanceof Map ? ((Map) map).raw() : null;
+        if (Math.abs((long) x2 - x1) >= Math.abs((long) y2 - y1)) { //mostly horizontal
+            if (x1 <= x2) {
+                drawLine(map, raw, false, x1, y1, x2, y2, w, h, color);
+            } else {
+                drawLine(map, raw, false, x2, y2, x1, y1, w, h, color);
+            }
+        } else { //mostly vertical, draw it with the axes swapped
+            if (y1 <= y2) {
+                drawLine(map, raw, true, y1, x1, y2, x2, h, w, color);
+            } else {
+                drawLine(map, raw, true, y2, x2, y1, x1, h, w, color);
+            }
+        }
+    }
+
+    /**
+     * Draws the segments {@code points[0]-points[1]-...-points[n-1]}, e.g. a path returned by
+     * {@link Map2D#shortestPath}. Segments with a {@code null} end are skipped.
+     * Note that for a cyclic path, two consecutive pixels on opposite edges are joined by a line across the map,
+     * use {@link #drawPoints} for those.
+     *
+     * @param map    the map to draw on
+     * @param points the vertices of the polyline
+     * @param color  colour used to draw the line.
+     */
+    static void drawPolyline(Map2D map, Pixel2D[] points, int color) {
+        if (points == null) {
+            return;
+        }
+
+        if (points.length == 1 && points[0] != null) {
+            drawLine(map, points[0], points[0], color);
+        }
+        for (int i = 1; i < points.length; i++) {
+            drawLine(map, points[i - 1], points[i], color);
+        }
+    }
+
+    /**
+     * Draws the lines {@code starts[i]-ends[i]} for every {@code i}.
+     *
+     * @param map    the map to draw on
+     * @param starts start points
+     * @param ends   end points (same length as {@code starts})
+     * @param color  colour used to draw the lines.
+     */
+    static void drawLines(Map2D map, Pixel2D[] starts, Pixel2D[] ends, int color) {
+        if (starts == null || ends == null) {
+            return;
+        }
+        if (starts.length != ends.length) {
+            throw new IllegalArgumentException("starts/ends lengths differ: " + starts.length + " != " + ends.length);
+        }
+
+        for (int i = 0; i < starts.length; i++) {
+            drawLine(map, starts[i], ends[i], color);
+        }
+    }
+
+    /**
+     * Sets every given pixel that is inside the map to {@code color}.
+     *
+     * @param map    the map to draw on
+     * @param points the pixels ({@code null} entries are skipped)
+     * @param color  the (new) color to be used in the drawing.
+     */
+    static void drawPoints(Map2D map, Pixel2D[] points, int color) {
+        if (points == null) {
+            return;
+        }
+
+        for (Pixel2D p : points) {
+            if (map.isInside(p)) {
+                map.setPixel(p, color);
+            }
+        }
+    }
+
+    /**
+     * Fills in the rectangle created by two corners, see {@link Map#drawRect(Pixel2D, Pixel2D, int)}.
+     *
+     * @param map   the map to draw on
+     * @param p1    one corner
+     * @param p2    opposite corner
+     * @param color value used to fill in the rectangle
+     */
+    static void drawRect(Map2D map, Pixel2D p1, Pixel2D p2, int color) {
+        if (p1 == null || p2 == null || !map.isInside(p1) || !map.isInside(p2)) {
+            return;
+        }
+        fillRect(map, p1.getX(), p1.getY(), p2.getX(), p2.getY(), color);
+    }
+
+    /**
+     * Fills in many rectangles, see {@link Map#drawRects(int[], int)}.
+     *
+     * @param map   the map to draw on
+     * @param rects packed corners {@code x1,y1,x2,y2} of each rectangle (length is a multiple of 4)
+     * @param color value used to fill in the rectangles
+     */
+    static void drawRects(Map2D map, int[] rects, int color) {
+        if (rects == null) {
+            return;
+        }
+        if (rects.length % 4 != 0) {
+            throw new IllegalArgumentException("rects must hold 4 ints per rectangle, length=" + rects.length);
+        }
+
+        int w = map.getWidth(), h = map.getHeight();
+        for (int i = 0; i < rects.length; i += 4) {
+            int x1 = rects[i], y1 = rects[i + 1], x2 = rects[i + 2], y2 = rects[i + 3];
+            if (isInside(x1, y1, w, h) && isInside(x2, y2, w, h)) {
+                fillRect(map, x1, y1, x2, y2, color);
+            }
+        }
+    }
+
+    /**
+     * Fills a polygon and draws its outline, see {@link Map#fillPolygon(Pixel2D[], int)}.
+     *
+     * @param map      the map to draw on
+     * @param vertices the vertices of the polygon, in order (at least 1, non-null)
+     * @param color    the (new) color to be used in the drawing.
+     */
+    static void fillPolygon(Map2D map, Pixel2D[] vertices, int color) {
+        if (vertices == null || vertices.length == 0) {
+            return;
+        }
+
+        int n = vertices.length;
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = vertices[i].getX();
+            ys[i] = vertices[i].getY();
+        }
+        fillPolygon(map, xs, ys, n, color);
+
+        for (int i = 0; i < n; i++) { //the outline, so thin parts and boundary pixels are not lost
+            drawLine(map, vertices[i], vertices[(i + 1) % n], color);
+        }
+    }
+
+    /**
+     * Fills the interior of a polygon (even-odd rule) with a scanline rasterizer.
+     * Scanlines run along columns (the storage order of {@link Map}), and pixel {@code (x,y)} is filled iff its
+     * centre lies inside the polygon. Edges are bucketed by their first column into an edge table, and each column
+     * only looks at the active edge table, so the cost is about {@code O(E log E + columns * active + pixels)}.
+     *
+     * @param map   the map to draw on
+     * @param xs    x coordinates of the vertices
+     * @param ys    y coordinates of the vertices
+     * @param n     number of vertices
+     * @param color the (new) color to be used in the drawing.
+     */
+    static void fillPolygon(Map2D map, double[] xs, double[] ys, int n, int color) {
+        int w = map.getWidth();
+
+        //edge table: every non vertical edge covers the columns x with min(xa,xb) <= x < max(xa,xb)
+        double[] ex = new double[n], ey = new double[n], slope = new double[n];
+        int[] end = new int[n];
+        long[] order = new long[n];
+        int edges = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            double xa = xs[i], ya = ys[i], xb = xs[j], yb = ys[j];
+            if (xa == xb) {
+                continue;
+            }
+            if (xa > xb) {
+                double t = xa;
+                xa = xb;
+                xb = t;
+                t = ya;
+                ya = yb;
+                yb = t;
+            }
+
+            double first = Math.max(Math.ceil(xa), 0);
+            double last = Math.min(Math.ceil(xb) - 1, w - 1);
+            if (first > last) {
+                continue;
+            }
+            ex[edges] = xa;
+            ey[edges] = ya;
+            slope[edges] = (yb - ya) / (xb - xa);
+            end[edges] = (int) last;
+            order[edges] = (long) first << 32 | edges;
+            edges++;
+        }
+        if (edges == 0) {
+            return;
+        }
+        Arrays.sort(order, 0, edges);
+
+        int[] active = new int[edges];
+        double[] cross = new double[edges];
+        int activeCount = 0, next = 0;
+        int x = (int) (order[0] >>> 32);
+        while (x < w && (activeCount > 0 || next < edges)) {
+            if (activeCount == 0) {
+                x = Math.max(x, (int) (order[next] >>> 32)); //skip empty columns
+            }
+            while (next < edges && (int) (order[next] >>> 32) <= x) {
+                active[activeCount++] = (int) order[next++];
+            }
+
+            //drop finished edges and compute where the others cross this column
+            int k = 0;
+            for (int a = 0; a < activeCount; a++) {
+                int e = active[a];
+                if (end[e] >= x) {
+                    active[k] = e;
+                    cross[k] = ey[e] + (x - ex[e]) * slope[e];
+                    k++;
+                }
+            }
+            activeCount = k;
+
+            //insertion sort by crossing, the order barely changes between neighbouring columns
+            for (int a = 1; a < activeCount; a++) {
+                int e = active[a];
+                double c = cross[a];
+                int b = a - 1;
+                while (b >= 0 && cross[b] > c) {
+                    active[b + 1] = active[b];
+                    cross[b + 1] = cross[b];
+                    b--;
+                }
+                active[b + 1] = e;
+                cross[b + 1] = c;
+            }
+
+            for (int a = 0; a + 1 < activeCount; a += 2) {
+                double lo = Math.max(Math.ceil(cross[a]), Integer.MIN_VALUE);
+                double hi = Math.min(Math.floor(cross[a + 1]), Integer.MAX_VALUE);
+                if (lo <= hi) {
+                    fillSpan(map, x, (int) lo, (int) hi, color);
+                }
+            }
+            x++;
+        }
+    }
+
+    /**
+     * Draws a line of the given thickness, see {@link Map#drawThickLine(Pixel2D, Pixel2D, double, int)}.
+     *
+     * @param map       the map to draw on
+     * @param p1        start point (non-null)
+     * @param p2        end point (non-null)
+     * @param thickness the width of the line in pixels
+     * @param color     colour used to draw the line.
+     */
+    static void drawThickLine(Map2D map, Pixel2D p1, Pixel2D p2, double thickness, int color) {
+        if (p1 == null || p2 == null) {
+            return;
+        }
+
+        drawLine(map, p1, p2, color);
+        double dx = p2.getX() - p1.getX(), dy = p2.getY() - p1.getY();
+        double len = Math.sqrt(dx * dx + dy * dy);
+        if (thickness <= 1 || len == 0) {
+            return;
+        }
+
+        //the rectangle around the line: offset by half the thickness along the normal, and extended by half a
+        //pixel past both ends so the end pixels are covered like the rest of the line
+        double nx = -dy / len * thickness / 2, ny = dx / len * thickness / 2;
+        double ux = dx / len / 2, uy = dy / len / 2;
+        double ax = p1.getX() - ux, ay = p1.getY() - uy, bx = p2.getX() + ux, by = p2.getY() + uy;
+        double[] xs = {ax + nx, bx + nx, bx - nx, ax - nx};
+        double[] ys = {ay + ny, by + ny, by - ny, ay - ny};
+        fillPolygon(map, xs, ys, 4, color);
+    }
+
+    /**
+     * Draws a filled axis aligned ellipse, see {@link Map#fillEllipse(Pixel2D, double, double, int)}.
+     *
+     * @param map    the map to draw on
+     * @param center centre of the ellipse (non-null, may be outside the map)
+     * @param rx     radius along x (&gt; 0)
+     * @param ry     radius along y (&gt; 0)
+     * @param color  the (new) color to be used in the drawing.
+     */
+    static void fillEllipse(Map2D map, Pixel2D center, double rx, double ry, int color) {
+        if (center == null || rx <= 0 || ry <= 0) {
+            return;
+        }
+
+        int cx = center.getX(), cy = center.getY();
+        long x0 = Math.max((long) Math.ceil(cx - rx), 0), x1 = Math.min((long) Math.floor(cx + rx), map.getWidth() - 1L);
+        int max = map.getHeight();
+        for (long x = x0; x <= x1; x++) {
+            double fx = (x - cx) / rx;
+            int dy = (int) Math.min(ry * Math.sqrt(Math.max(1 - fx * fx, 0)), max);
+            while (dy > 0 && !isInEllipse(fx, dy / ry)) { //fix any floating point error
+                dy--;
+            }
+            while (dy < max && isInEllipse(fx, (dy + 1) / ry)) {
+                dy++;
+            }
+            fillSpan(map, (int) x, cy - dy, cy + dy, color);
+        }
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static boolean isInCircle(double rad, int x, int y) {
+        return x * x + y * y <= rad * rad;
+    }
+
+    private static boolean isInEllipse(double fx, double fy) {
+        return fx * fx + fy * fy <= 1;
+    }
+
+    /**
+     * Returns {@code spans[dx]} = the largest {@code dy} with {@code dx^2+dy^2<=r^2}, for {@code dx} from 0 to the
+     * radius (both capped by the map size, since no column further away can be inside the map).
+     */
+    private static int[] circleSpans(Map2D map, double rad) {
+        int max = Math.max(map.getWidth(), map.getHeight());
+        int r = (int) Math.min(Math.floor(rad), max);
+        int[] spans = new int[r + 1];
+        for (int dx = 0; dx <= r; dx++) {
+            int dy = (int) Math.min(Math.sqrt(Math.max(rad * rad - (double) dx * dx, 0)), max);
+            while (dy > 0 && !isInCircle(rad, dx, dy)) { //fix any floating point error, so we match isInCircle exactly
+                dy--;
+            }
+            while (dy < max && isInCircle(rad, dx, dy + 1)) {
+                dy++;
+            }
+            spans[dx] = dy;
+        }
+        return spans;
+    }
+
+    private static void drawCircle(Map2D map, int cx, int cy, int[] spans, int color) {
+        int r = spans.length - 1;
+        int x0 = Math.max(cx - r, 0), x1 = Math.min(cx + r, map.getWidth() - 1);
+        for (int x = x0; x <= x1; x++) {
+            int dy = spans[Math.abs(x - cx)];
+            fillSpan(map, x, cy - dy, cy + dy, color);
+        }
+    }
+
+    private static boolean isInside(int x, int y, int w, int h) {
+        return x >= 0 && x < w && y >= 0 && y < h;
+    }
+
+    /**
+     * Fills the rectangle between two corners (inside the map) one column span at a time.
+     */
+    private static void fillRect(Map2D map, int x1, int y1, int x2, int y2, int color) {
+        int minX = Math.min(x1, x2), maxX = Math.max(x1, x2);
+        int minY = Math.min(y1, y2), maxY = Math.max(y1, y2);
+        if (map instanceof Map) {
+            int[][] raw = ((Map) map).raw();
+            for (int x = minX; x <= maxX; x++) {
+                Arrays.fill(raw[x], minY, maxY + 1, color);
+            }
+            ((Map) map).markDirty(minX, minY, maxX, maxY);
+        } else {
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    map.setPixel(x, y, color);
+                }
+            }
+        }
+    }
+
+    private static int outCode(int x, int y, int w, int h) {
+        int code = 0;
+        if (x < 0) {
+            code |= 1;
+        } else if (x >= w) {
+            code |= 2;
+        }
+        if (y < 0) {
+            code |= 4;
+        } else if (y >= h) {
+            code |= 8;
+        }
+        return code;
+    }
+
+    /**
+     * Draws a line along the major axis {@code a} (with {@code a1<=a2}), {@code b} is the minor axis.
+     * Step {@code t} (from 0 to {@code da}) is drawn at {@code a1+t, b1+round(t*db/da)}, rounding halves up.
+     * If {@code swap} the pixel is {@code (b,a)} instead of {@code (a,b)}.
+     */
+    private static void drawLine(Map2D map, int[][] raw, boolean swap, int a1, int b1, int a2, int b2,
+                                 int aLen, int bLen, int color) {
+        long da = (long) a2 - a1, db = (long) b2 - b1;
+        if (da == 0) {
+            plot(map, raw, swap, a1, b1, color); //a single pixel (inside, since it passed the outcode test)
+            return;
+        }
+
+        //clip the major axis, then narrow down to the steps whose minor coordinate is inside too
+        long lo = Math.max(0, -(long) a1), hi = Math.min(da, aLen - 1L - a1);
+        if (lo > hi) {
+            return;
+        }
+        if (db >= 0) {
+            lo = firstStep(lo, hi, b1, db, da, 0, true);
+            hi = lastStep(lo, hi, b1, db, da, bLen - 1, false);
+        } else {
+            lo = firstStep(lo, hi, b1, db, da, bLen - 1, false);
+            hi = lastStep(lo, hi, b1, db, da, 0, true);
+        }
+        if (lo > hi) {
+            return;
+        }
+
+        //b(t) = b1 + floor((2*t*db + da) / (2*da)), kept as a quotient and a remainder in [0, 2*da)
+        long den = 2 * da, step = 2 * db;
+        long[] qr = minorDivMod(lo, db, da);
+        int b = (int) (b1 + qr[0]);
+        long rem = qr[1];
+        for (long t = lo; t <= hi; t++) {
+            plot(map, raw, swap, (int) (a1 + t), b, color);
+            rem += step;
+            if (rem >= den) {
+                rem -= den;
+                b++;
+            } else if (rem < 0) {
+                rem += den;
+                b--;
+            }
+        }
+    }
+
+    private static long minorAt(long t, int b1, long db, long da) {
+        if (da < EXACT_SPAN && Math.abs(db) < EXACT_SPAN) {
+            return b1 + Math.floorDiv(2 * t * db + da, 2 * da);
+        }
+        return b1 + minorDivMod(t, db, da)[0];
+    }
+
+    /**
+     * Returns {@code floor((2*t*db + da) / (2*da))} and the remainder (in {@code [0, 2*da)}) of the minor offset at
+     * step {@code t}. Lines that span {@link #EXACT_SPAN} pixels or more (from far outside the map) would overflow a
+     * {@code long} there, so they take a {@link BigInteger} slow path. It is only used while clipping.
+     */
+    private static long[] minorDivMod(long t, long db, long da) {
+        long den = 2 * da;
+        if (da < EXACT_SPAN && Math.abs(db) < EXACT_SPAN) {
+            long num = 2 * t * db + da;
+            return new long[]{Math.floorDiv(num, den), Math.floorMod(num, den)};
+        }
+        BigInteger[] qr = BigInteger.valueOf(2 * t).multiply(BigInteger.valueOf(db)).add(BigInteger.valueOf(da))
+                .divideAndRemainder(BigInteger.valueOf(den));
+        long q = qr[0].longValueExact(), rem = qr[1].longValueExact();
+        if (rem < 0) { //divideAndRemainder truncates towards 0
+            q--;
+            rem += den;
+        }
+        return new long[]{q, rem};
+    }
+
+    /**
+     * Returns the first step in {@code [lo,hi]} whose minor coordinate is {@code >=bound} (if {@code atLeast}) or
+     * {@code <=bound} (otherwise), assuming the minor coordinate is monotone. Returns {@code hi+1} if there is none.
+     */
+    private static long firstStep(long lo, long hi, int b1, long db, long da, int bound, boolean atLeast) {
+        long end = hi + 1;
+        while (lo < end) {
+            long mid = (lo + end) >>> 1;
+            long b = minorAt(mid, b1, db, da);
+            if (atLeast ? b >= bound : b <= bound) {
+                end = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the last step in {@code [lo,hi]} whose minor coordinate is {@code >=bound} (if {@code atLeast}) or
+     * {@code <=bound} (otherwise), assuming the minor coordinate is monotone. Returns {@code lo-1} if there is none.
+     */
+    private static long lastStep(long lo, long hi, int b1, long db, long da, int bound, boolean atLeast) {
+        long start = lo - 1;
+        while (start < hi) {
+            long mid = (start + hi + 1) >>> 1;
+            long b = minorAt(mid, b1, db, da);
+            if (atLeast ? b >= bound : b <= bound) {
+                start = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return start;
+    }
+
+    private static void plot(Map2D map, int[][] raw, boolean swap, int a, int b, int color) {
+        int x = swap ? b : a, y = swap ? a : b;
+        if (raw != null) {
+            raw[x][y] = color;
+            ((Map) map).markDirty(x, y, x, y);
+        } else {
+            map.setPixel(x, y, color);
+        }
+    }
+}
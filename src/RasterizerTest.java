@@ -0,0 +1,137 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RasterizerTest {
+
+    private static int count(Map m, int v) {
+        int n = 0;
+        for (int x = 0; x < m.getWidth(); x++) {
+            for (int y = 0; y < m.getHeight(); y++) {
+                n += m.getPixel(x, y) == v ? 1 : 0;
+            }
+        }
+        return n;
+    }
+
+
+    //polygons
+    @Test
+    void fillPolygonSquareMatchesDrawRect() {
+        Map a = new Map(10, 10, 0);
+        Map b = new Map(10, 10, 0);
+
+        a.fillPolygon(new Pixel2D[]{new Index2D(2, 1), new Index2D(7, 1), new Index2D(7, 5), new Index2D(2, 5)}, 3);
+        b.drawRect(new Index2D(2, 1), new Index2D(7, 5), 3);
+
+        assertEquals(b, a);
+    }
+
+    @Test
+    void fillPolygonTriangle() {
+        Map a = new Map(10, 10, 0);
+
+        a.fillPolygon(new Pixel2D[]{new Index2D(0, 0), new Index2D(8, 0), new Index2D(0, 8)}, 1);
+
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                assertEquals(x + y <= 8 ? 1 : 0, a.getPixel(x, y), x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void fillPolygonEvenOddLeavesHole() {
+        Map a = new Map(12, 12, 0);
+        //outer square and inner square joined by a zero width cut
+        Pixel2D[] ring = {
+                new Index2D(0, 0), new Index2D(11, 0), new Index2D(11, 11), new Index2D(0, 11), new Index2D(0, 0),
+                new Index2D(4, 4), new Index2D(4, 7), new Index2D(7, 7), new Index2D(7, 4), new Index2D(4, 4)
+        };
+
+        Rasterizer.fillPolygon(a, toX(ring), toY(ring), ring.length, 1);
+
+        assertEquals(1, a.getPixel(1, 1));
+        assertEquals(1, a.getPixel(10, 10));
+        assertEquals(0, a.getPixel(5, 5));
+        assertEquals(0, a.getPixel(6, 6));
+    }
+
+    @Test
+    void fillPolygonClipsToMap() {
+        Map a = new Map(5, 5, 0);
+
+        a.fillPolygon(new Pixel2D[]{new Index2D(-10, -10), new Index2D(20, -10), new Index2D(20, 20), new Index2D(-10, 20)}, 2);
+
+        assertEquals(25, count(a, 2));
+    }
+
+
+    //thick lines & ellipses
+    @Test
+    void thickLineCoversBand() {
+        Map a = new Map(20, 20, 0);
+
+        a.drawThickLine(new Index2D(2, 10), new Index2D(17, 10), 5, 1);
+
+        for (int x = 2; x <= 17; x++) {
+            for (int y = 8; y <= 12; y++) {
+                assertEquals(1, a.getPixel(x, y));
+            }
+            assertEquals(0, a.getPixel(x, 7));
+            assertEquals(0, a.getPixel(x, 13));
+        }
+        assertEquals(0, a.getPixel(1, 10));
+    }
+
+    @Test
+    void thinThickLineIsDrawLine() {
+        Map a = new Map(10, 10, 0);
+        Map b = new Map(10, 10, 0);
+
+        a.drawThickLine(new Index2D(1, 2), new Index2D(8, 7), 1, 4);
+        b.drawLine(new Index2D(1, 2), new Index2D(8, 7), 4);
+
+        assertEquals(b, a);
+    }
+
+    @Test
+    void ellipseWithEqualRadiiIsACircle() {
+        Map a = new Map(15, 15, 0);
+        Map b = new Map(15, 15, 0);
+
+        a.fillEllipse(new Index2D(7, 6), 4, 4, 1);
+        b.drawCircle(new Index2D(7, 6), 4, 1);
+
+        assertEquals(b, a);
+    }
+
+    @Test
+    void ellipseMatchesEquation() {
+        Map a = new Map(20, 12, 0);
+        a.fillEllipse(new Index2D(9, -1), 7.5, 5.2, 1);
+
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 12; y++) {
+                double fx = (x - 9) / 7.5, fy = (y + 1) / 5.2;
+                assertEquals(fx * fx + fy * fy <= 1 ? 1 : 0, a.getPixel(x, y), x + "," + y);
+            }
+        }
+    }
+
+    private static double[] toX(Pixel2D[] ps) {
+        double[] xs = new double[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            xs[i] = ps[i].getX();
+        }
+        return xs;
+    }
+
+    private static double[] toY(Pixel2D[] ps) {
+        double[] ys = new double[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            ys[i] = ps[i].getY();
+        }
+        return ys;
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe {@link SearchMetrics} sink that keeps counters and log2 histograms per {@link SearchMetrics.Kind}:
+ * the number of searches, early exits, cells expanded, wall time and the peak frontier.
+ * Histogram bucket {@code b} counts the searches whose value {@code v} has {@code 64 - numberOfLeadingZeros(v) == b},
+ * so bucket 0 is {@code v = 0}, bucket 1 is {@code v = 1}, bucket 2 is {@code 2..3} and so on.
+ *
+ * @author Joshua Hall
+ */
+public class SearchCounters implements SearchMetrics {
+    private static final int BUCKETS = 65;
+
+    private final Counters[] counters = new Counters[Kind.values().length];
+
+    public SearchCounters() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new Counters();
+        }
+    }
+
+    @Override
+    public void searched(Kind kind, long expanded, int peakFrontier, long nanos, boolean earlyExit) {
+        Counters c = counters[kind.ordinal()];
+        c.searches.increment();
+        if (earlyExit) {
+            c.earlyExits.increment();
+        }
+        c.expanded.add(expanded);
+        c.nanos.add(nanos);
+        c.expandedHistogram.incrementAndGet(bucket(expanded));
+        c.nanosHistogram.incrementAndGet(bucket(nanos));
+
+        long peak;
+        while ((peak = c.peakFrontier.get(0)) < peakFrontier && !c.peakFrontier.compareAndSet(0, peak, peakFrontier)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @param kind a kind of search
+     * @return how many searches of that kind were recorded
+     */
+    public long searches(Kind kind) {
+        return counters[kind.ordinal()].searches.sum();
+    }
+
+    /**
+     * @param kind a kind of search
+     * @return how many of them stopped early
+     */
+    public long earlyExits(Kind kind) {
+        return counters[kind.ordinal()].earlyExits.sum();
+    }
+
+    /**
+     * @param kind a kind of search
+     * @return the total number of cells they expanded
+     */
+    public long expanded(Kind kind) {
+        return counters[kind.ordinal()].expanded.sum();
+    }
+
+    /**
+     * @param kind a kind of search
+     * @return their total wall time, in nanoseconds
+     */
+    public long nanos(Kind kind) {
+        return counters[kind.ordinal()].nanos.sum();
+    }
+
+    /**
+     * @param kind a kind of search
+     * @return the largest wavefront any of them had
+     */
+    public long peakFrontier(Kind kind) {
+        return counters[kind.ordinal()].peakFrontier.get(0);
+    }
+
+    /**
+     * @param kind a kind of search
+     * @return a copy of the log2 histogram of the cells expanded per search
+     */
+    public long[] expandedHistogram(Kind kind) {
+        return copy(counters[kind.ordinal()].expandedHistogram);
+    }
+
+    /**
+     * @param kind a kind of search
+     * @return a copy of the log2 histogram of the wall time per search, in nanoseconds
+     */
+    public long[] nanosHistogram(Kind kind) {
+        return copy(counters[kind.ordinal()].nanosHistogram);
+    }
+
+    /**
+     * Forgets everything recorded so far (not atomic with concurrent searches).
+     */
+    public void reset() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new Counters();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Kind kind : Kind.values()) {
+            long n = searches(kind);
+            sb.append(String.format("%s: %d searches, %d early exits, %.1f cells/search, %.1fus/search, peak frontier %d%n",
+                    kind, n, earlyExits(kind), n == 0 ? 0.0 : (double) expanded(kind) / n,
+                    n == 0 ? 0.0 : nanos(kind) / 1e3 / n, peakFrontier(kind)));
+        }
+        return sb.toString();
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    private static int bucket(long v) {
+        return 64 - Long.numberOfLeadingZeros(Math.max(v, 0));
+    }
+
+    private static long[] copy(AtomicLongArray histogram) {
+        long[] out = new long[histogram.length()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = histogram.get(i);
+        }
+        return out;
+    }
+
+    /// /////////////////// Private Classes ///////////////////////
+
+    private static final class Counters {
+        final LongAdder searches = new LongAdder(), earlyExits = new LongAdder();
+        final LongAdder expanded = new LongAdder(), nanos = new LongAdder();
+        final AtomicLongArray peakFrontier = new AtomicLongArray(1);
+        final AtomicLongArray expandedHistogram = new AtomicLongArray(BUCKETS), nanosHistogram = new AtomicLongArray(BUCKETS);
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Receives one measurement per BFS search ({@code fill}, {@code shortestPath}, {@code allDistance} and
+ * {@code withinDistance}), e.g. to aggregate them ({@link SearchCounters}) or to record them as Java Flight Recorder
+ * events ({@link JfrSearchMetrics}).
+ * Install one with {@link Map#setSearchMetrics(SearchMetrics)}. With none installed the searches do not even read the
+ * clock; the counts come from the search's own queue indices either way, so there is no per-cell cost.
+ * <p>
+ * Implementations are called from whatever thread ran the search, so they must be thread-safe.
+ *
+ * @author Joshua Hall
+ */
+public interface SearchMetrics {
+    /**
+     * The searches that are measured.
+     */
+    enum Kind {
+        FILL, SHORTEST_PATH, ALL_DISTANCE, WITHIN_DISTANCE
+    }
+
+    /**
+     * Called at the end of every search that got past the argument checks.
+     *
+     * @param kind         which search it was
+     * @param expanded     how many cells were taken off the queue and had their neighbours checked
+     * @param peakFrontier the size of the largest wavefront (the most cells at the same distance)
+     * @param nanos        the wall time of the search, in nanoseconds
+     * @param earlyExit    {@code true} if the search stopped before its queue ran out (a {@code shortestPath} that
+     *                     reached its target,
+     *                     or a {@code withinDistance} that hit one of its limits)
+     */
+    void searched(Kind kind, long expanded, int peakFrontier, long nanos, boolean earlyExit);
+}
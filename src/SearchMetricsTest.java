@@ -0,0 +1,94 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchMetricsTest {
+
+    @AfterEach
+    void uninstall() {
+        Map.setSearchMetrics(null);
+    }
+
+    @Test
+    void countsExpandedCellsAndPeakFrontier() {
+        List<Object[]> calls = new ArrayList<>();
+        Map.setSearchMetrics((kind, expanded, peak, nanos, early) -> calls.add(new Object[]{kind, expanded, peak, early}));
+        Map a = new Map(5, 5, 0);
+
+        a.allDistance(new Index2D(0, 0), 1, false);
+        a.shortestPath(new Index2D(0, 0), new Index2D(1, 0), 1, false);
+        a.shortestPath(new Index2D(0, 0), new Index2D(4, 4), 0, false); //the start is an obstacle: not measured
+        a.fill(new Index2D(2, 2), 3, false);
+
+        assertEquals(3, calls.size());
+        assertArrayEquals(new Object[]{SearchMetrics.Kind.ALL_DISTANCE, 25L, 5, false}, calls.get(0));
+        assertArrayEquals(new Object[]{SearchMetrics.Kind.SHORTEST_PATH, 1L, 1, true}, calls.get(1));
+        assertArrayEquals(new Object[]{SearchMetrics.Kind.FILL, 25L, 8, false}, calls.get(2)); //from the centre: 1, 4, 8, 8, 4
+    }
+
+    @Test
+    void unreachableTargetIsNotAnEarlyExit() {
+        SearchCounters counters = new SearchCounters();
+        Map.setSearchMetrics(counters);
+        Map a = new Map(5, 5, 0);
+        a.drawLine(new Index2D(2, 0), new Index2D(2, 4), 1);
+
+        assertNull(a.shortestPath(new Index2D(0, 0), new Index2D(4, 4), 1, false));
+        assertNotNull(a.view().shortestPath(new Index2D(0, 0), new Index2D(1, 4), 1, false));
+
+        assertEquals(2, counters.searches(SearchMetrics.Kind.SHORTEST_PATH));
+        assertEquals(1, counters.earlyExits(SearchMetrics.Kind.SHORTEST_PATH));
+        assertEquals(0, counters.searches(SearchMetrics.Kind.FILL));
+    }
+
+    @Test
+    void countersKeepLog2Histograms() {
+        SearchCounters counters = new SearchCounters();
+
+        counters.searched(SearchMetrics.Kind.FILL, 0, 0, 1, false);
+        counters.searched(SearchMetrics.Kind.FILL, 3, 7, 1000, false);
+        counters.searched(SearchMetrics.Kind.FILL, 1 << 20, 2, 1000, true);
+
+        long[] hist = counters.expandedHistogram(SearchMetrics.Kind.FILL);
+        assertEquals(1, hist[0]);
+        assertEquals(1, hist[2]);
+        assertEquals(1, hist[21]);
+        assertEquals(2, counters.nanosHistogram(SearchMetrics.Kind.FILL)[10]);
+        assertEquals(7, counters.peakFrontier(SearchMetrics.Kind.FILL));
+        assertEquals((1 << 20) + 3, counters.expanded(SearchMetrics.Kind.FILL));
+        assertEquals(1, counters.earlyExits(SearchMetrics.Kind.FILL));
+
+        counters.reset();
+        assertEquals(0, counters.searches(SearchMetrics.Kind.FILL));
+    }
+
+    @Test
+    void recordsJfrEvents(@TempDir File dir) throws IOException {
+        Map.setSearchMetrics(new JfrSearchMetrics());
+        File file = new File(dir, "search.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("ex2.Search");
+            recording.start();
+            new Map(10, 10, 0).allDistance(new Index2D(0, 0), 1, false);
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+        assertEquals(1, events.size());
+        assertEquals("ALL_DISTANCE", events.get(0).getString("kind"));
+        assertEquals(100, events.get(0).getLong("expanded"));
+        assertEquals(10, events.get(0).getInt("peakFrontier"));
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Watches a BFS search ({@code fill}, {@code shortestPath} or {@code allDistance}) one wavefront at a time, e.g. to
+ * animate it (see {@link Ex2_GUI#animate(Map2D, Pixel2D, Pixel2D, int, boolean)}).
+ * A wavefront is every cell first reached at the same distance from the start. The search calls the observer once per
+ * wavefront, not once per cell, and a search without an observer does no extra work at all.
+ * <p>
+ * Cells are packed as {@code x*height+y}, where {@code height} is the height of the searched map.
+ *
+ * @author Joshua Hall
+ */
+public interface SearchObserver {
+    /**
+     * Called when the search starts expanding a wavefront.
+     * The array is the search's own queue: read {@code cells[from..to)} during the call, but do not keep or change it.
+     *
+     * @param distance the distance of the wavefront from the start (0 for the start itself)
+     * @param cells    the packed cells, {@code x*height+y}
+     * @param from     the first cell of the wavefront (inclusive)
+     * @param to       the end of the wavefront (exclusive)
+     * @param height   the height of the map, to unpack the cells
+     */
+    void wavefront(int distance, int[] cells, int from, int to, int height);
+
+    /**
+     * Called once when the search is over.
+     *
+     * @param reached {@code true} if the search stopped at its target ({@code shortestPath} only)
+     */
+    default void finished(boolean reached) {
+    }
+}
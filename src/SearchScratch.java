@@ -0,0 +1,37 @@
+import java.util.Arrays;
+
+/**
+ * The reusable working memory of one BFS search at a time: the queue, the predecessor of every reached cell and a
+ * generation-stamped visited set. Instead of clearing the visited set before every search, {@link #begin(int)} bumps
+ * the current epoch, and a cell counts as visited only if its stamp equals the epoch. So after the first search over a
+ * map, a search costs time proportional to the cells it reaches, not to the size of the map.
+ * <p>
+ * Not thread-safe: use one per thread (see {@link PathQueryEngine}).
+ *
+ * @author Joshua Hall
+ */
+final class SearchScratch {
+    int[] stamps = new int[0]; //stamps[cell] == epoch iff the cell was visited by the current search
+    int[] prev = new int[0]; //the cell each visited cell was reached from (valid for visited cells only)
+    int[] queue = new int[0];
+    int epoch;
+    boolean inUse; //taken by a running search, see MapSearch
+
+    /**
+     * Starts a new search over {@code cells} packed cells: grows the arrays if needed and bumps the epoch.
+     *
+     * @param cells the number of cells of the map ({@code width*height})
+     */
+    void begin(int cells) {
+        if (stamps.length < cells) {
+            stamps = new int[cells];
+            prev = new int[cells];
+            queue = new int[cells];
+            epoch = 0;
+        }
+        if (++epoch == 0) { //wrapped around after 2^32 searches, old stamps could match again
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * The result of a bounded distance query ({@link Map#withinDistance(Pixel2D, int, boolean, int, int)}): the reached
+ * pixels and their distances from the start, in BFS order (so by non-decreasing distance, the start first).
+ * Only the reached pixels are stored, so its size is that of the neighbourhood and not of the map.
+ * Pixels are packed as {@code x*height+y}, as in the searches.
+ *
+ * @author Joshua Hall
+ */
+public final class SparseDistances {
+    private final int[] cells, distances;
+    private final int height;
+    private final boolean truncated;
+
+    SparseDistances(int[] cells, int[] distances, int height, boolean truncated) {
+        this.cells = cells;
+        this.distances = distances;
+        this.height = height;
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return the number of reached pixels (0 if the start was outside the map or an obstacle)
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * @param i an index in {@code [0, size())}
+     * @return the x coordinate of the {@code i}th pixel
+     */
+    public int getX(int i) {
+        return cells[i] / height;
+    }
+
+    /**
+     * @param i an index in {@code [0, size())}
+     * @return the y coordinate of the {@code i}th pixel
+     */
+    public int getY(int i) {
+        return cells[i] % height;
+    }
+
+    /**
+     * @param i an index in {@code [0, size())}
+     * @return the {@code i}th pixel
+     */
+    public Pixel2D getPixel(int i) {
+        return new Index2D(getX(i), getY(i));
+    }
+
+    /**
+     * @param i an index in {@code [0, size())}
+     * @return the distance of the {@code i}th pixel from the start
+     */
+    public int getDistance(int i) {
+        return distances[i];
+    }
+
+    /**
+     * @return the distance of the farthest reached pixel, or -1 if nothing was reached
+     */
+    public int maxDistance() {
+        return distances.length == 0 ? -1 : distances[distances.length - 1];
+    }
+
+    /**
+     * @return {@code true} iff the cell limit stopped the search while closer pixels than the radius remained
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return a copy of the reached pixels, packed as {@code x*height+y}
+     */
+    public int[] cells() {
+        return cells.clone();
+    }
+
+    /**
+     * @return a copy of the distances, {@code distances()[i]} belongs to {@code cells()[i]}
+     */
+    public int[] distances() {
+        return distances.clone();
+    }
+
+    /**
+     * Returns the bounding box of the reached pixels, in map coordinates. With {@code cyclic} searches the pixels can
+     * lie on both sides of an edge, in which case the box spans the map.
+     *
+     * @return {@code {minX, minY, maxX, maxY}}, or {@code null} if nothing was reached
+     */
+    public int[] bounds() {
+        if (cells.length == 0) {
+            return null;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int cell : cells) {
+            int x = cell / height, y = cell % height;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        return new int[]{minX, minY, maxX, maxY};
+    }
+
+    /**
+     * Writes the distances into a cropped map, like a window of {@link Map2D#allDistance(Pixel2D, int, boolean)}.
+     * Pixels that were not reached (or lie outside the window) are -1.
+     *
+     * @param x      the left of the window, in map coordinates
+     * @param y      the bottom of the window
+     * @param width  the width of the window (&gt; 0)
+     * @param height the height of the window (&gt; 0)
+     * @return a new {@code width*height} map whose pixel {@code (0,0)} is the map pixel {@code (x,y)}
+     */
+    public Map window(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be >0. you have: " + width + ", " + height);
+        }
+        int[][] dist = new int[width][height];
+        for (int[] col : dist) {
+            Arrays.fill(col, -1);
+        }
+        for (int i = 0; i < cells.length; i++) {
+            int wx = getX(i) - x, wy = getY(i) - y;
+            if (wx >= 0 && wx < width && wy >= 0 && wy < height) {
+                dist[wx][wy] = distances[i];
+            }
+        }
+        return Map.wrap(dist);
+    }
+}
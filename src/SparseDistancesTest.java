@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseDistancesTest {
+
+    @Test
+    void matchesAllDistanceWithinTheRadius() {
+        for (boolean cyclic : new boolean[]{false, true}) {
+            Map m = MapGenerator.obstacles(50, 30, 0.3, 7);
+            Index2D start = new Index2D(25, 15);
+            m.setPixel(start, MapGenerator.FLOOR);
+            Map2D all = m.allDistance(start, MapGenerator.WALL, cyclic);
+
+            SparseDistances near = m.withinDistance(start, MapGenerator.WALL, cyclic, 6, Integer.MAX_VALUE);
+
+            int expected = 0;
+            for (int x = 0; x < m.getWidth(); x++) {
+                for (int y = 0; y < m.getHeight(); y++) {
+                    int d = all.getPixel(x, y);
+                    if (d >= 0 && d <= 6) {
+                        expected++;
+                    }
+                }
+            }
+            assertEquals(expected, near.size());
+            assertEquals(start, near.getPixel(0));
+            for (int i = 0; i < near.size(); i++) {
+                assertEquals(all.getPixel(near.getX(i), near.getY(i)), near.getDistance(i));
+                assertTrue(i == 0 || near.getDistance(i - 1) <= near.getDistance(i)); //closest first
+            }
+            assertEquals(6, near.maxDistance());
+            assertFalse(near.isTruncated());
+        }
+    }
+
+    @Test
+    void stopsAtTheCellLimit() {
+        Map m = new Map(100, 100, 0);
+
+        SparseDistances near = m.withinDistance(new Index2D(50, 50), 1, false, Integer.MAX_VALUE, 10);
+
+        assertEquals(10, near.size());
+        assertTrue(near.isTruncated());
+        assertEquals(2, near.maxDistance()); //1 + 4 at distance 1, 5 of the 8 at distance 2
+        assertFalse(m.withinDistance(new Index2D(50, 50), 1, false, 1, 5).isTruncated());
+    }
+
+    @Test
+    void wrapsAroundWhenCyclic() {
+        Map m = new Map(10, 10, 0);
+
+        SparseDistances near = m.withinDistance(new Index2D(0, 0), 1, true, 1, Integer.MAX_VALUE);
+
+        assertEquals(5, near.size());
+        assertArrayEquals(new int[]{0, 0, 9, 9}, near.bounds());
+        Map window = near.window(-1, -1, 3, 3);
+        assertEquals(0, window.getPixel(1, 1));
+        assertEquals(1, window.getPixel(2, 1));
+        assertEquals(-1, window.getPixel(0, 1)); //(-1,0) is reached as (9,0), outside the window
+    }
+
+    @Test
+    void windowCropsTheDistances() {
+        Map m = new Map(20, 20, 0);
+        m.setPixel(11, 10, 1);
+
+        SparseDistances near = m.withinDistance(new Index2D(10, 10), 1, false, 2, Integer.MAX_VALUE);
+        Map window = near.window(8, 8, 5, 5);
+
+        assertArrayEquals(new int[]{8, 8, 11, 12}, near.bounds()); //x=12 is 3 away past the obstacle
+        assertEquals(-1, window.getPixel(4, 3));
+        assertEquals(0, window.getPixel(2, 2));
+        assertEquals(-1, window.getPixel(3, 2)); //obstacle
+        assertEquals(2, window.getPixel(2, 4));
+        assertEquals(-1, window.getPixel(4, 4)); //distance 4
+    }
+
+    @Test
+    void invalidStartReachesNothing() {
+        Map m = new Map(5, 5, 0);
+        m.setPixel(0, 0, 1);
+
+        assertEquals(0, m.withinDistance(new Index2D(0, 0), 1, false, 3, 10).size());
+        assertEquals(0, m.withinDistance(new Index2D(9, 9), 1, false, 3, 10).size());
+        assertNull(m.withinDistance(null, 1, false, 3, 10).bounds());
+        assertEquals(1, m.withinDistance(new Index2D(2, 2), 1, false, 0, 10).size());
+        assertThrows(IllegalArgumentException.class, () -> m.withinDistance(new Index2D(2, 2), 1, false, -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> m.withinDistance(new Index2D(2, 2), 1, false, 3, 0));
+    }
+}
@@ -1387,6 +1387,72 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 	}
 
 
+	/**
+	 * Draws the specified in-memory image centered at (<em>x</em>, <em>y</em>),
+	 * rescaled to the specified bounding box. Each image pixel becomes a sharp
+	 * block (nearest neighbor scaling), which suits raster maps.
+	 *
+	 * @param  x the center <em>x</em>-coordinate of the image
+	 * @param  y the center <em>y</em>-coordinate of the image
+	 * @param  image the image to draw
+	 * @param  scaledWidth the width of the scaled image (in screen coordinates)
+	 * @param  scaledHeight the height of the scaled image (in screen coordinates)
+	 * @throws IllegalArgumentException if {@code image} is null
+	 * @throws IllegalArgumentException if either {@code scaledWidth}
+	 *         or {@code scaledHeight} is negative
+	 */
+	public static void picture(double x, double y, Image image, double scaledWidth, double scaledHeight) {
+		if (image == null) throw new IllegalArgumentException("image is null");
+		if (scaledWidth  < 0) throw new IllegalArgumentException("width  is negative: " + scaledWidth);
+		if (scaledHeight < 0) throw new IllegalArgumentException("height is negative: " + scaledHeight);
+		double xs = scaleX(x);
+		double ys = scaleY(y);
+		double ws = factorX(scaledWidth);
+		double hs = factorY(scaledHeight);
+		Object interpolation = offscreen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+		offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		offscreen.drawImage(image, (int) Math.round(xs - ws/2.0),
+				(int) Math.round(ys - hs/2.0),
+				(int) Math.round(ws),
+				(int) Math.round(hs), null);
+		if (interpolation != null) offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		draw();
+	}
+
+	/**
+	 * Draws the specified in-memory image like
+	 * {@link #picture(double, double, Image, double, double)}, but only inside the box
+	 * [<em>left</em>, <em>right</em>] &times; [<em>bottom</em>, <em>top</em>] (in user coordinates).
+	 * The box is exactly as it would look after drawing the whole image, and the
+	 * time taken depends on the size of the box, not of the image.
+	 *
+	 * @param  x the center <em>x</em>-coordinate of the image
+	 * @param  y the center <em>y</em>-coordinate of the image
+	 * @param  image the image to draw
+	 * @param  scaledWidth the width of the scaled image (in screen coordinates)
+	 * @param  scaledHeight the height of the scaled image (in screen coordinates)
+	 * @param  left the left edge of the box
+	 * @param  bottom the bottom edge of the box
+	 * @param  right the right edge of the box
+	 * @param  top the top edge of the box
+	 * @throws IllegalArgumentException if {@code image} is null
+	 * @throws IllegalArgumentException if either {@code scaledWidth}
+	 *         or {@code scaledHeight} is negative
+	 */
+	public static void picture(double x, double y, Image image, double scaledWidth, double scaledHeight,
+							   double left, double bottom, double right, double top) {
+		int x0 = (int) Math.floor(scaleX(left)), y0 = (int) Math.floor(scaleY(top));
+		int x1 = (int) Math.ceil(scaleX(right)), y1 = (int) Math.ceil(scaleY(bottom));
+		Shape clip = offscreen.getClip();
+		offscreen.clipRect(x0, y0, x1 - x0, y1 - y0);
+		try {
+			picture(x, y, image, scaledWidth, scaledHeight);
+		} finally {
+			offscreen.setClip(clip);
+		}
+	}
+
+
 	/**
 	 * Draws the specified image centered at (<em>x</em>, <em>y</em>), rotated
 	 * given number of degrees, and rescaled to the specified bounding box.
@@ -1576,6 +1642,8 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 	 */
 	public static void save(String filename) {
 		if (filename == null) throw new IllegalArgumentException();
+		MapEvents.SaveImage event = new MapEvents.SaveImage();
+		event.begin();
 		File file = new File(filename);
 		String suffix = filename.substring(filename.lastIndexOf('.') + 1);
 
@@ -1612,6 +1680,13 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 		else {
 			System.out.println("Invalid image file type: " + suffix);
 		}
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.file = filename;
+			event.bytes = file.length();
+			event.commit();
+		}
 	}
 
 
@@ -0,0 +1,425 @@
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+
+/**
+ * Shortest paths and cost maps on maps whose pixel values are traversal costs: stepping onto a pixel costs its value,
+ * so the cost of a path is the sum of its pixels apart from the first. As in {@link Map2D#shortestPath(Pixel2D,
+ * Pixel2D, int, boolean)}, pixels of {@code obsColor} can not be entered, and {@code cyclic} loops around the edges.
+ * <p>
+ * The map is scanned once when the engine is created, and the algorithm is picked by its largest cost:
+ * <ul>
+ *     <li>{@link Algorithm#ZERO_ONE_BFS} for costs 0 and 1: a deque, 0-cost steps go to the front</li>
+ *     <li>{@link Algorithm#DIAL} for costs up to {@link #MAX_DIAL_COST}: a ring of {@code maxCost+1} buckets, one per
+ *     pending cost, so a step is an array append and there is no ordering work at all</li>
+ *     <li>{@link Algorithm#HEAP} otherwise: Dijkstra with a binary heap of packed {@code long}s</li>
+ * </ul>
+ * All three skip stale entries instead of decreasing keys. The visited stamps and predecessors go in the thread's
+ * {@link SearchScratch} from {@link MapSearch}, the costs and the frontier in a per-thread cache common to all engines,
+ * so a query allocates nothing but its result after the first one on a thread.
+ * <p>
+ * The map is read live, so it must not be changed while queries run, and its costs must stay within the range of the
+ * picked algorithm. Queries may run on several threads at once.
+ *
+ * @author Joshua Hall
+ */
+public class WeightedSearch {
+    /**
+     * The largest cost {@link Algorithm#DIAL} is picked for, larger ones use {@link Algorithm#HEAP}.
+     */
+    public static final int MAX_DIAL_COST = 1024;
+    private static final ThreadLocal<SoftReference<Work>> WORK = new ThreadLocal<>(); //soft: big maps
+
+    /**
+     * The shortest path algorithms, see {@link WeightedSearch}.
+     */
+    public enum Algorithm {
+        ZERO_ONE_BFS, DIAL, HEAP
+    }
+
+    private final Map2D map;
+    private final int obsColor;
+    private final boolean cyclic;
+    private final int maxCost;
+    private final Algorithm algorithm;
+
+    /**
+     * Creates an engine with the fastest algorithm for the costs of the map.
+     *
+     * @param map      the map to search (non-null, every pixel but obstacles &gt;= 0)
+     * @param obsColor the color which is addressed as an obstacle.
+     * @param cyclic   {@code true} iff we want to loop around the edge
+     */
+    public WeightedSearch(Map2D map, int obsColor, boolean cyclic) {
+        this(map, obsColor, cyclic, null);
+    }
+
+    /**
+     * Creates an engine with a given algorithm.
+     *
+     * @param map       the map to search (non-null, every pixel but obstacles &gt;= 0)
+     * @param obsColor  the color which is addressed as an obstacle.
+     * @param cyclic    {@code true} iff we want to loop around the edge
+     * @param algorithm the algorithm to use (it must support the costs of the map), or {@code null} to pick one
+     */
+    public WeightedSearch(Map2D map, int obsColor, boolean cyclic, Algorithm algorithm) {
+        if (map == null) {
+            throw new NullPointerException("null map");
+        }
+        this.map = map;
+        this.obsColor = obsColor;
+        this.cyclic = cyclic;
+
+        int max = 0;
+        for (int x = 0; x < map.getWidth(); x++) {
+            for (int y = 0; y < map.getHeight(); y++) {
+                int v = map.getPixel(x, y);
+                if (v == obsColor) {
+                    continue;
+                }
+                if (v < 0) {
+                    throw new IllegalArgumentException("costs must be >=0. you have: " + v + " at " + x + "," + y);
+                }
+                max = Math.max(max, v);
+            }
+        }
+        this.maxCost = max;
+
+        Algorithm best = max <= 1 ? Algorithm.ZERO_ONE_BFS : max <= MAX_DIAL_COST ? Algorithm.DIAL : Algorithm.HEAP;
+        if ((algorithm == Algorithm.ZERO_ONE_BFS && max > 1) || (algorithm == Algorithm.DIAL && max > MAX_DIAL_COST)) {
+            throw new IllegalArgumentException(algorithm + " does not support a cost of " + max);
+        }
+        this.algorithm = algorithm == null ? best : algorithm;
+    }
+
+    /**
+     * @return the algorithm the queries use
+     */
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the largest cost of a pixel (obstacles aside) when the engine was created
+     */
+    public int maxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Computes a cheapest path between two pixels. The search stops as soon as {@code p2} is settled.
+     *
+     * @param p1 starting pixel
+     * @param p2 finishing pixel
+     * @return an array of pixels representing the path from {@code p1} to {@code p2}, or {@code null} if there is none
+     */
+    public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2) {
+        if (!canSearch(p1, p2)) {
+            return null;
+        }
+        if (p1.equals(p2)) {
+            return new Pixel2D[]{p1};
+        }
+
+        Work w = acquire();
+        try {
+            int target = cell(p2);
+            return search(cell(p1), target, w) ? MapSearch.finalPath(w.scratch.prev, target, map.getHeight()) : null;
+        } finally {
+            release(w);
+        }
+    }
+
+    /**
+     * Computes the cost of a cheapest path between two pixels (without building it).
+     *
+     * @param p1 starting pixel
+     * @param p2 finishing pixel
+     * @return the sum of the pixels of the path apart from {@code p1}, or -1 if there is no path
+     */
+    public int cost(Pixel2D p1, Pixel2D p2) {
+        if (!canSearch(p1, p2)) {
+            return -1;
+        }
+        Work w = acquire();
+        try {
+            int target = cell(p2);
+            return search(cell(p1), target, w) ? w.dist[target] : -1;
+        } finally {
+            release(w);
+        }
+    }
+
+    /**
+     * Creates a cost map from a given starting point, the weighted {@link Map2D#allDistance(Pixel2D, int, boolean)}.
+     *
+     * @param start starting point
+     * @return a new {@link Map} with the cost of the cheapest path from {@code start} to every pixel, -1 where there
+     * is none (and on obstacles)
+     */
+    public Map2D costMap(Pixel2D start) {
+        int width = map.getWidth(), height = map.getHeight();
+        if (start == null || !map.isInside(start) || map.getPixel(start) == obsColor) {
+            return new Map(width, height, -1);
+        }
+
+        Work w = acquire();
+        try {
+            search(cell(start), -1, w);
+            int[] stamps = w.scratch.stamps, dist = w.dist;
+            int epoch = w.scratch.epoch;
+            int[][] costs = new int[width][height];
+            for (int x = 0; x < width; x++) {
+                int[] col = costs[x];
+                for (int y = 0, c = x * height; y < height; y++, c++) {
+                    col[y] = stamps[c] == epoch ? dist[c] : -1;
+                }
+            }
+            return Map.wrap(costs);
+        } finally {
+            release(w);
+        }
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    /**
+     * Returns this thread's cached frontier and costs (a new one if they are already taken), together with the
+     * thread's {@link SearchScratch}. Must be given back with {@link #release(Work)}.
+     */
+    private static Work acquire() {
+        SoftReference<Work> ref = WORK.get();
+        Work w = ref != null ? ref.get() : null;
+        if (w == null) {
+            w = new Work();
+            WORK.set(new SoftReference<>(w));
+        }
+        if (w.inUse) {
+            w = new Work();
+        }
+        w.inUse = true;
+        w.scratch = MapSearch.acquire();
+        return w;
+    }
+
+    private static void release(Work w) {
+        MapSearch.release(w.scratch);
+        w.scratch = null;
+        w.inUse = false;
+    }
+
+    private boolean canSearch(Pixel2D p1, Pixel2D p2) {
+        return p1 != null && p2 != null && map.isInside(p1) && map.isInside(p2)
+                && map.getPixel(p1) != obsColor && map.getPixel(p2) != obsColor;
+    }
+
+    private int cell(Pixel2D p) {
+        return p.getX() * map.getHeight() + p.getY();
+    }
+
+    /**
+     * Runs the search from {@code start} until {@code target} is settled (or everything, for a target of -1), leaving
+     * the costs in {@code w.dist} and the predecessors in {@code w.scratch.prev}, valid where the stamp is current.
+     *
+     * @return {@code true} iff the target was reached
+     */
+    private boolean search(int start, int target, Work w) {
+        int width = map.getWidth(), height = map.getHeight(), cells = MapSearch.cells(width, height);
+        SearchScratch scratch = w.scratch;
+        scratch.begin(cells);
+        if (w.dist.length < cells) {
+            w.dist = new int[cells];
+        }
+        int[] stamps = scratch.stamps, prev = scratch.prev, dist = w.dist;
+        int[] dx = Neighbourhood.FOUR.dx, dy = Neighbourhood.FOUR.dy, offsets = Neighbourhood.FOUR.offsets(height);
+        int epoch = scratch.epoch;
+
+        stamps[start] = epoch;
+        dist[start] = 0;
+        prev[start] = -1;
+        w.clear(algorithm, maxCost);
+        w.push(algorithm, start, 0, 0);
+
+        while (!w.isEmpty()) {
+            long entry = w.pop(algorithm);
+            int curr = (int) entry, d = (int) (entry >>> 32);
+            if (d > dist[curr]) {
+                continue; //stale: the cell was pushed again with a lower cost
+            }
+            if (curr == target) {
+                return true;
+            }
+
+            int x = curr / height, y = curr - x * height;
+            boolean interior = x >= 1 && x < width - 1 && y >= 1 && y < height - 1;
+            for (int i = 0; i < dx.length; i++) {
+                int newX = x + dx[i];
+                int newY = y + dy[i];
+                int next;
+
+                if (interior) {
+                    next = curr + offsets[i]; //see MapSearch
+                } else {
+                    if (cyclic) {
+                        newX = MapSearch.wrap(newX, width);
+                        newY = MapSearch.wrap(newY, height);
+                    } else if (!MapSearch.isInside(newX, newY, width, height)) {
+                        continue;
+                    }
+                    next = newX * height + newY;
+                }
+
+                int v = map.getPixel(newX, newY);
+                if (v == obsColor) {
+                    continue;
+                }
+                long nd = (long) d + v;
+                if (stamps[next] == epoch && dist[next] <= nd) {
+                    continue;
+                }
+                if (nd > Integer.MAX_VALUE) {
+                    throw new ArithmeticException("path cost overflows an int");
+                }
+
+                stamps[next] = epoch;
+                dist[next] = (int) nd;
+                prev[next] = curr;
+                w.push(algorithm, next, (int) nd, v);
+            }
+        }
+        return false;
+    }
+
+    /// /////////////////// Private Classes ///////////////////////
+
+    /**
+     * The per-thread working memory: the BFS scratch (borrowed for one query), the costs and the frontier of every
+     * algorithm. Frontier entries are packed as {@code cost << 32 | cell}, which also makes them ordered by cost.
+     */
+    private static final class Work {
+        SearchScratch scratch;
+        boolean inUse;
+        int[] dist = new int[0];
+
+        long[] deque = new long[64]; //ZERO_ONE_BFS: a ring buffer, the capacity is a power of 2
+        int dequeHead, dequeSize;
+
+        long[] heap = new long[64]; //HEAP: a binary min-heap in heap[0, heapSize)
+        int heapSize;
+
+        int[][] buckets = new int[0][]; //DIAL: buckets[(cost - bucketCost + bucket) % length] holds the cells of a cost
+        int[] bucketSizes = new int[0];
+        int bucket, bucketRead, bucketCost;
+        long pending;
+
+        void clear(Algorithm algorithm, int maxCost) {
+            dequeHead = dequeSize = heapSize = 0;
+            pending = 0; //the last query may have stopped early, with another algorithm
+            if (algorithm == Algorithm.DIAL) {
+                if (buckets.length != maxCost + 1) {
+                    buckets = new int[maxCost + 1][16];
+                    bucketSizes = new int[maxCost + 1];
+                }
+                Arrays.fill(bucketSizes, 0);
+                bucket = bucketRead = bucketCost = 0;
+            }
+        }
+
+        boolean isEmpty() {
+            return dequeSize == 0 && heapSize == 0 && pending == 0;
+        }
+
+        void push(Algorithm algorithm, int cell, int cost, int step) {
+            switch (algorithm) {
+                case ZERO_ONE_BFS:
+                    if (dequeSize == deque.length) {
+                        growDeque();
+                    }
+                    long entry = (long) cost << 32 | cell;
+                    if (step == 0) {
+                        dequeHead = (dequeHead - 1) & (deque.length - 1);
+                        deque[dequeHead] = entry;
+                    } else {
+                        deque[(dequeHead + dequeSize) & (deque.length - 1)] = entry;
+                    }
+                    dequeSize++;
+                    break;
+                case DIAL:
+                    int b = (bucket + (cost - bucketCost)) % buckets.length;
+                    if (bucketSizes[b] == buckets[b].length) {
+                        buckets[b] = Arrays.copyOf(buckets[b], buckets[b].length * 2);
+                    }
+                    buckets[b][bucketSizes[b]++] = cell;
+                    pending++;
+                    break;
+                default:
+                    if (heapSize == heap.length) {
+                        heap = Arrays.copyOf(heap, heap.length * 2);
+                    }
+                    siftUp(heapSize++, (long) cost << 32 | cell);
+            }
+        }
+
+        long pop(Algorithm algorithm) {
+            switch (algorithm) {
+                case ZERO_ONE_BFS:
+                    long entry = deque[dequeHead];
+                    dequeHead = (dequeHead + 1) & (deque.length - 1);
+                    dequeSize--;
+                    return entry;
+                case DIAL:
+                    while (bucketRead == bucketSizes[bucket]) { //the bucket of bucketCost is done
+                        bucketSizes[bucket] = 0;
+                        bucketRead = 0;
+                        bucket = bucket + 1 == buckets.length ? 0 : bucket + 1;
+                        bucketCost++;
+                    }
+                    pending--;
+                    return (long) bucketCost << 32 | buckets[bucket][bucketRead++];
+                default:
+                    long top = heap[0];
+                    long last = heap[--heapSize];
+                    if (heapSize > 0) {
+                        siftDown(last);
+                    }
+                    return top;
+            }
+        }
+
+        private void growDeque() {
+            long[] grown = new long[deque.length * 2];
+            for (int i = 0; i < dequeSize; i++) {
+                grown[i] = deque[(dequeHead + i) & (deque.length - 1)];
+            }
+            deque = grown;
+            dequeHead = 0;
+        }
+
+        private void siftUp(int i, long entry) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= entry) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = entry;
+        }
+
+        private void siftDown(long entry) {
+            int i = 0, half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (entry <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = entry;
+        }
+    }
+}
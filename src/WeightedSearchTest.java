@@ -0,0 +1,183 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedSearchTest {
+    private static final int OBS = -1;
+
+    @Test
+    void picksTheAlgorithmByMaxCost() {
+        assertEquals(WeightedSearch.Algorithm.ZERO_ONE_BFS, new WeightedSearch(costs(20, 20, 1, 1), OBS, false).algorithm());
+        assertEquals(WeightedSearch.Algorithm.DIAL, new WeightedSearch(costs(20, 20, 9, 1), OBS, false).algorithm());
+        assertEquals(WeightedSearch.Algorithm.HEAP, new WeightedSearch(costs(20, 20, 5000, 1), OBS, false).algorithm());
+        assertEquals(9, new WeightedSearch(costs(20, 20, 9, 1), OBS, false).maxCost());
+    }
+
+    @Test
+    void everyAlgorithmMatchesBellmanFord() {
+        for (int maxCost : new int[]{1, 7, 5000}) {
+            for (boolean cyclic : new boolean[]{false, true}) {
+                Map m = costs(23, 17, maxCost, maxCost + (cyclic ? 1 : 0));
+                int[][] expected = bellmanFord(m, 3, 4, cyclic);
+                for (WeightedSearch.Algorithm a : WeightedSearch.Algorithm.values()) {
+                    if ((a == WeightedSearch.Algorithm.ZERO_ONE_BFS && maxCost > 1)
+                            || (a == WeightedSearch.Algorithm.DIAL && maxCost > WeightedSearch.MAX_DIAL_COST)) {
+                        continue;
+                    }
+                    WeightedSearch search = new WeightedSearch(m, OBS, cyclic, a);
+                    assertEquals(new Map(expected), search.costMap(new Index2D(3, 4)), a + " " + maxCost + " " + cyclic);
+
+                    for (int x = 0; x < m.getWidth(); x += 5) {
+                        for (int y = 0; y < m.getHeight(); y += 3) {
+                            Pixel2D to = new Index2D(x, y);
+                            assertEquals(expected[x][y], search.cost(new Index2D(3, 4), to));
+                            Pixel2D[] path = search.shortestPath(new Index2D(3, 4), to);
+                            if (expected[x][y] < 0) {
+                                assertNull(path);
+                            } else {
+                                assertEquals(expected[x][y], pathCost(m, path, cyclic));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void unitCostsMatchShortestPath() {
+        Map m = MapGenerator.obstacles(40, 30, 0.3, 2);
+        int[][] arr = m.getMap();
+        for (int[] col : arr) {
+            for (int y = 0; y < col.length; y++) {
+                col[y] = col[y] == MapGenerator.WALL ? OBS : 1;
+            }
+        }
+        arr[0][0] = 1;
+        arr[39][29] = 1;
+        Map costs = new Map(arr);
+        WeightedSearch search = new WeightedSearch(costs, OBS, false);
+
+        Pixel2D[] bfs = costs.shortestPath(new Index2D(0, 0), new Index2D(39, 29), OBS, false);
+        Pixel2D[] path = search.shortestPath(new Index2D(0, 0), new Index2D(39, 29));
+
+        assertEquals(bfs == null ? -1 : bfs.length - 1, search.cost(new Index2D(0, 0), new Index2D(39, 29)));
+        assertEquals(bfs == null ? null : bfs.length, path == null ? null : path.length);
+        assertEquals(costs.allDistance(new Index2D(0, 0), OBS, false), search.costMap(new Index2D(0, 0)));
+    }
+
+    @Test
+    void zeroCostsAreFree() {
+        Map m = new Map(5, 1, 1);
+        m.setPixel(1, 0, 0);
+        m.setPixel(2, 0, 0);
+        WeightedSearch search = new WeightedSearch(m, OBS, false);
+
+        assertEquals(0, search.cost(new Index2D(0, 0), new Index2D(2, 0)));
+        assertEquals(2, search.cost(new Index2D(0, 0), new Index2D(4, 0)));
+        assertEquals(2, search.cost(new Index2D(4, 0), new Index2D(0, 0))); //the start is free, (0,0) is not
+        assertEquals(1, new WeightedSearch(m, OBS, true).cost(new Index2D(0, 0), new Index2D(4, 0))); //wraps around
+    }
+
+    @Test
+    void obstaclesAndInvalidArguments() {
+        Map m = new Map(3, 3, 2);
+        m.setPixel(1, 0, OBS);
+        m.setPixel(1, 1, OBS);
+        m.setPixel(1, 2, OBS);
+        WeightedSearch search = new WeightedSearch(m, OBS, false);
+
+        assertNull(search.shortestPath(new Index2D(0, 0), new Index2D(2, 0)));
+        assertEquals(-1, search.cost(new Index2D(0, 0), new Index2D(1, 0)));
+        assertEquals(-1, search.costMap(new Index2D(1, 1)).getPixel(0, 0));
+        assertArrayEquals(new Pixel2D[]{new Index2D(0, 0)}, search.shortestPath(new Index2D(0, 0), new Index2D(0, 0)));
+
+        m.setPixel(0, 0, -5);
+        assertThrows(IllegalArgumentException.class, () -> new WeightedSearch(m, OBS, false));
+        m.setPixel(0, 0, 2);
+        assertThrows(IllegalArgumentException.class,
+                () -> new WeightedSearch(m, OBS, false, WeightedSearch.Algorithm.ZERO_ONE_BFS));
+        assertThrows(NullPointerException.class, () -> new WeightedSearch(null, OBS, false));
+    }
+
+    @Test
+    void enginesShareTheThreadScratch() {
+        Map ones = costs(30, 20, 1, 5), sevens = costs(30, 20, 7, 5);
+        WeightedSearch bfs = new WeightedSearch(ones, OBS, false), dial = new WeightedSearch(sevens, OBS, false);
+        int[][] expected = bellmanFord(ones, 3, 4, false);
+        SearchScratch shared = MapSearch.acquire();
+        MapSearch.release(shared);
+        int epoch = shared.epoch;
+
+        dial.cost(new Index2D(3, 4), new Index2D(4, 4)); //stops early, leaving cells in the buckets
+        assertEquals(new Map(expected), bfs.costMap(new Index2D(3, 4)));
+        assertNotEquals(epoch, shared.epoch);
+        assertFalse(shared.inUse);
+    }
+
+    /// /////////////////// Private Methods ///////////////////////
+
+    /**
+     * Random costs in {@code [0, maxCost]} with about 20% obstacles.
+     */
+    private static Map costs(int w, int h, int maxCost, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        Map m = new Map(w, h, 0);
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                m.setPixel(x, y, rnd.nextInt(5) == 0 ? OBS : rnd.nextInt(maxCost + 1));
+            }
+        }
+        m.setPixel(3, 4, 0);
+        return m;
+    }
+
+    private static int[][] bellmanFord(Map m, int sx, int sy, boolean cyclic) {
+        int w = m.getWidth(), h = m.getHeight();
+        int[][] d = new int[w][h];
+        for (int[] col : d) {
+            Arrays.fill(col, -1);
+        }
+        d[sx][sy] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    if (d[x][y] < 0) {
+                        continue;
+                    }
+                    for (int[] n : new int[][]{{x + 1, y}, {x - 1, y}, {x, y + 1}, {x, y - 1}}) {
+                        int nx = cyclic ? Math.floorMod(n[0], w) : n[0], ny = cyclic ? Math.floorMod(n[1], h) : n[1];
+                        if (nx < 0 || nx >= w || ny < 0 || ny >= h || m.getPixel(nx, ny) == OBS) {
+                            continue;
+                        }
+                        int nd = d[x][y] + m.getPixel(nx, ny);
+                        if (d[nx][ny] < 0 || nd < d[nx][ny]) {
+                            d[nx][ny] = nd;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return d;
+    }
+
+    private static int pathCost(Map m, Pixel2D[] path, boolean cyclic) {
+        int cost = 0;
+        for (int i = 1; i < path.length; i++) {
+            int dx = Math.abs(path[i].getX() - path[i - 1].getX()), dy = Math.abs(path[i].getY() - path[i - 1].getY());
+            if (cyclic) {
+                dx = Math.min(dx, m.getWidth() - dx);
+                dy = Math.min(dy, m.getHeight() - dy);
+            }
+            assertEquals(1, dx + dy); //a 4-connected step
+            cost += m.getPixel(path[i]);
+        }
+        return cost;
+    }
+}